@@ -3,6 +3,9 @@ package org.example;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.example.service.ClientFactory;
+
+import java.util.Properties;
 
 public class App extends Application {
 
@@ -11,8 +14,10 @@ public class App extends Application {
 
         stage.setTitle("Gestor de Fichadas (JavaFX)");
 
-        // Pantalla inicial
-        LoginView login = new LoginView(stage);
+        // Pantalla inicial (cliente según fichadas.properties / --clave=valor)
+        Properties config = ClientFactory.loadConfig(getParameters().getNamed());
+        CalcRowService.setParallelism(ClientFactory.calcParallelism(config));
+        LoginView login = new LoginView(stage, config);
         Scene scene = new Scene(login.getRoot(), 700, 500);
 
         // ==============================
@@ -2,6 +2,7 @@ package org.example;
 
 import java.time.*;
 import java.util.*;
+import java.util.function.Consumer;
 
 
 /**
@@ -40,7 +41,27 @@ public class ExceptionApplier {
         if (baseRows == null || baseRows.isEmpty()) {
             return List.of();
         }
+        return stage(baseRows, fixes, holidays).run(baseRows);
+    }
+
+    /**
+     * Lo mismo que apply como paso de RowStage: los fixes y la mayoría de turno por
+     * semana se indexan acá sobre baseRows; después cada fila se resuelve sola.
+     */
+    public static RowStage stage(
+            List<MainView.CalcRow> baseRows,
+            List<ExceptionFix> fixes,
+            Set<LocalDate> holidays
+    ) {
+        return stage(WeekShiftIndex.of(baseRows == null ? List.of() : baseRows), fixes, holidays);
+    }
 
+    /** Igual, con la mayoría semanal ya indexada sobre las filas base (la de la carga). */
+    public static RowStage stage(
+            WeekShiftIndex weekShifts,
+            List<ExceptionFix> fixes,
+            Set<LocalDate> holidays
+    ) {
         if (holidays == null) {
             holidays = Set.of();
         }
@@ -58,237 +79,232 @@ public class ExceptionApplier {
             }
         }
 
+        Set<LocalDate> feriados = holidays;
+        return (row, out) -> applyRow(row, fixMap, weekShifts, feriados, out);
+    }
 
-        // Mayoría de turno por USUARIO y por SEMANA
-        Map<String, Map<LocalDate, ScheduleService.Shift>> majorityPerUserWeek =
-                computeMajorityShiftPerUserWeek(baseRows);
+    private static void applyRow(
+            MainView.CalcRow row,
+            Map<String, ExceptionFix> fixMap,
+            WeekShiftIndex weekShifts,
+            Set<LocalDate> holidays,
+            Consumer<MainView.CalcRow> out
+    ) {
+        if (row == null) return;
 
-        List<MainView.CalcRow> result = new ArrayList<>();
+        String usuario  = row.getUsuario();
+        String fechaStr = row.getFecha();
+        if (fechaStr == null || fechaStr.isBlank()) {
+            // Por seguridad: si no tiene fecha, la dejamos pasar tal cual
+            out.accept(row);
+            return;
+        }
 
-        for (MainView.CalcRow row : baseRows) {
-            if (row == null) continue;
+        LocalDate date   = row.getDate();
+        DayOfWeek dow    = date.getDayOfWeek();
+        boolean isHoliday = holidays.contains(date);
 
-            String usuario  = row.getUsuario();
-            String fechaStr = row.getFecha();
-            if (fechaStr == null || fechaStr.isBlank()) {
-                // Por seguridad: si no tiene fecha, la dejamos pasar tal cual
-                result.add(row);
-                continue;
-            }
+        String key   = usuario + "|" + fechaStr;
+        ExceptionFix fix = fixMap.get(key);
 
-            LocalDate date   = LocalDate.parse(fechaStr);
-            DayOfWeek dow    = date.getDayOfWeek();
-            boolean isHoliday = holidays.contains(date);
-
-            String key   = usuario + "|" + fechaStr;
-            ExceptionFix fix = fixMap.get(key);
-
-            // --------------------------------------------------------
-            // 1) Caso SIN fix: regla especial de sábados para turno A
-            // --------------------------------------------------------
-            if (fix == null) {
-                boolean isSaturday = (dow == DayOfWeek.SATURDAY);
-
-                boolean hasEntrada = row.getEntrada() != null && !row.getEntrada().isBlank();
-                boolean hasSalida  = row.getSalida()  != null && !row.getSalida().isBlank();
-                boolean hasMarks   = hasEntrada || hasSalida;
-
-                if (isSaturday && !isHoliday
-                        && "SIN_MARCAS".equalsIgnoreCase(row.getEstado())
-                        && !hasMarks) {
-
-                    // Determinar turno efectivo del usuario para ESA semana
-                    ScheduleService.Shift effectiveShift = null;
-
-                    // 1) Turno explícito en la fila, si viene
-                    String turnoStr = row.getTurno();
-                    if ("A".equalsIgnoreCase(turnoStr)) {
-                        effectiveShift = ScheduleService.Shift.A;
-                    } else if ("B".equalsIgnoreCase(turnoStr)) {
-                        effectiveShift = ScheduleService.Shift.B;
-                    }
-
-                    // 2) Si no hay turno explícito, usamos la mayoría semanal
-                    if (effectiveShift == null) {
-                        Map<LocalDate, ScheduleService.Shift> weeksForUser =
-                                majorityPerUserWeek.get(usuario);
-                        if (weeksForUser != null) {
-                            LocalDate weekId = date.with(DayOfWeek.MONDAY);
-                            effectiveShift = weeksForUser.get(weekId);
-                        }
-                    }
-
-                    // 3) Regla final:
-                    //    - Si el turno efectivo es A → NO se agrega el sábado (no trabaja).
-                    //    - Si es B o desconocido → se deja pasar tal cual.
-                    if (effectiveShift == ScheduleService.Shift.A) {
-                        // Saltamos este sábado SIN_MARCAS y sin fichadas para turno A
-                        continue;
-                    }
+        // --------------------------------------------------------
+        // 1) Caso SIN fix: regla especial de sábados para turno A
+        // --------------------------------------------------------
+        if (fix == null) {
+            boolean isSaturday = (dow == DayOfWeek.SATURDAY);
+
+            boolean hasEntrada = row.getEntrada() != null && !row.getEntrada().isBlank();
+            boolean hasSalida  = row.getSalida()  != null && !row.getSalida().isBlank();
+            boolean hasMarks   = hasEntrada || hasSalida;
+
+            if (isSaturday && !isHoliday
+                    && "SIN_MARCAS".equalsIgnoreCase(row.getEstado())
+                    && !hasMarks) {
+
+                // Determinar turno efectivo del usuario para ESA semana
+                ScheduleService.Shift effectiveShift = null;
+
+                // 1) Turno explícito en la fila, si viene
+                String turnoStr = row.getTurno();
+                if ("A".equalsIgnoreCase(turnoStr)) {
+                    effectiveShift = ScheduleService.Shift.A;
+                } else if ("B".equalsIgnoreCase(turnoStr)) {
+                    effectiveShift = ScheduleService.Shift.B;
                 }
 
-                // Sin fix y no fue filtrado -> se agrega la fila tal cual
-                result.add(row);
-                continue;
+                // 2) Si no hay turno explícito, usamos la mayoría semanal
+                if (effectiveShift == null) {
+                    effectiveShift = majority(weekShifts, usuario, date);
+                }
+
+                // 3) Regla final:
+                //    - Si el turno efectivo es A → NO se agrega el sábado (no trabaja).
+                //    - Si es B o desconocido → se deja pasar tal cual.
+                if (effectiveShift == ScheduleService.Shift.A) {
+                    // Saltamos este sábado SIN_MARCAS y sin fichadas para turno A
+                    return;
+                }
             }
 
-            // --------------------------------------------------------
-            // 2) Caso CON fix: construimos una NUEVA CalcRow parcheada
-            // --------------------------------------------------------
+            // Sin fix y no fue filtrado -> se agrega la fila tal cual
+            out.accept(row);
+            return;
+        }
+
+        // --------------------------------------------------------
+        // 2) Caso CON fix: construimos una NUEVA CalcRow parcheada
+        // --------------------------------------------------------
 
-            // --------------------------------------------------------
+        // --------------------------------------------------------
 // 2) Caso CON fix: construimos una NUEVA CalcRow parcheada
 // --------------------------------------------------------
 
 // Valores actuales (de la fila base)
-            String turnoActual = row.getTurno();
-            String entradaAct  = row.getEntrada();
-            String salidaAct   = row.getSalida();
-            String descAct     = row.getDescripcion();
+        String turnoActual = row.getTurno();
+        String entradaAct  = row.getEntrada();
+        String salidaAct   = row.getSalida();
+        String descAct     = row.getDescripcion();
 
 // Valores del fix (sobrescriben si vienen no vacíos)
-            String fixTurno    = fix.getTurno();
-            String fixEntrada  = fix.getEntrada();
-            String fixSalida   = fix.getSalida();
-            String fixDesc     = fix.getDescripcion();
+        String fixTurno    = fix.getTurno();
+        String fixEntrada  = fix.getEntrada();
+        String fixSalida   = fix.getSalida();
+        String fixDesc     = fix.getDescripcion();
 
 // Finales
-            String turnoFinal   = (fixTurno   != null && !fixTurno.isBlank())   ? fixTurno   : turnoActual;
-            String entradaFinal = (fixEntrada != null && !fixEntrada.isBlank()) ? fixEntrada : entradaAct;
-            String salidaFinal  = (fixSalida  != null && !fixSalida.isBlank())  ? fixSalida  : salidaAct;
-            String descFinal    = (fixDesc    != null && !fixDesc.isBlank())    ? fixDesc    : descAct;
+        String turnoFinal   = (fixTurno   != null && !fixTurno.isBlank())   ? fixTurno   : turnoActual;
+        String entradaFinal = (fixEntrada != null && !fixEntrada.isBlank()) ? fixEntrada : entradaAct;
+        String salidaFinal  = (fixSalida  != null && !fixSalida.isBlank())  ? fixSalida  : salidaAct;
+        String descFinal    = (fixDesc    != null && !fixDesc.isBlank())    ? fixDesc    : descAct;
 
-            // 1) arrancamos SIEMPRE con lo que venía en la fila base
-            int tardanzaFinal = row.getTardanza();
-            int extraFinal    = row.getExtra();
-            int netoFinal     = row.getNeto();
+        // 1) arrancamos SIEMPRE con lo que venía en la fila base
+        int tardanzaFinal = row.getTardanza();
+        int extraFinal    = row.getExtra();
+        int netoFinal     = row.getNeto();
 
 // ===============================
 // FLAGS
 // ===============================
-            boolean isSalidaJustificada = descFinal != null && descFinal.equalsIgnoreCase("Salida justificada");
-            boolean isOtro              = descFinal != null && descFinal.equalsIgnoreCase("Otro");
-            boolean isAusencia          = descFinal != null && descFinal.equalsIgnoreCase("Ausencia");
+        boolean isSalidaJustificada = descFinal != null && descFinal.equalsIgnoreCase("Salida justificada");
+        boolean isOtro              = descFinal != null && descFinal.equalsIgnoreCase("Otro");
+        boolean isAusencia          = descFinal != null && descFinal.equalsIgnoreCase("Ausencia");
 
 // ===============================
 // AUSENCIA → castiga jornada completa
 // ===============================
-            if (isAusencia) {
-                LocalDate dateAbs = LocalDate.parse(row.getFecha());
-                DayOfWeek dowAbs  = dateAbs.getDayOfWeek();
-
-                boolean laboral = dowAbs != DayOfWeek.SATURDAY
-                        && dowAbs != DayOfWeek.SUNDAY
-                        && (holidays == null || !holidays.contains(dateAbs));
-
-                if (laboral) {
-                    ScheduleService.Shift shiftAbs =
-                            "A".equalsIgnoreCase(turnoFinal)
-                                    ? ScheduleService.Shift.A
-                                    : ScheduleService.Shift.B;
-
-                    LocalTime start = ScheduleService.expectedStart(shiftAbs, dowAbs);
-                    LocalTime end   = ScheduleService.expectedEnd(shiftAbs, dowAbs);
-
-                    if (start != null && end != null) {
-                        int jornadaMin = (int) Duration.between(start, end).toMinutes();
-                        if (jornadaMin < 0) jornadaMin = 0;
-
-                        tardanzaFinal = jornadaMin;
-                        extraFinal    = 0;
-                        netoFinal     = -jornadaMin;
-                    }
+        if (isAusencia) {
+            LocalDate dateAbs = row.getDate();
+            DayOfWeek dowAbs  = dateAbs.getDayOfWeek();
+
+            boolean laboral = dowAbs != DayOfWeek.SATURDAY
+                    && dowAbs != DayOfWeek.SUNDAY
+                    && (holidays == null || !holidays.contains(dateAbs));
+
+            if (laboral) {
+                ScheduleService.Shift shiftAbs =
+                        "A".equalsIgnoreCase(turnoFinal)
+                                ? ScheduleService.Shift.A
+                                : ScheduleService.Shift.B;
+
+                LocalTime start = ScheduleService.expectedStart(shiftAbs, dowAbs);
+                LocalTime end   = ScheduleService.expectedEnd(shiftAbs, dowAbs);
+
+                if (start != null && end != null) {
+                    int jornadaMin = (int) Duration.between(start, end).toMinutes();
+                    if (jornadaMin < 0) jornadaMin = 0;
+
+                    tardanzaFinal = jornadaMin;
+                    extraFinal    = 0;
+                    netoFinal     = -jornadaMin;
                 }
             }
+        }
 
 // ===============================
 // SALIDA JUSTIFICADA / OTRO → NEUTRALIZAN TODO
 // ===============================
-            if (isSalidaJustificada || isOtro) {
-                tardanzaFinal = 0;
-                extraFinal    = 0;
-                netoFinal     = 0;
-            }
+        if (isSalidaJustificada || isOtro) {
+            tardanzaFinal = 0;
+            extraFinal    = 0;
+            netoFinal     = 0;
+        }
 
 // ===============================
 // RECÁLCULO NORMAL (solo si corresponde)
 // ===============================
-            if (!isAusencia && !isSalidaJustificada && !isOtro) {
-                int[] recalc = recomputeMinutesWithEarlyLeave(
-                        row,
-                        turnoFinal,
-                        entradaFinal,
-                        salidaFinal
-                );
-                if (recalc != null) {
-                    tardanzaFinal = recalc[0];
-                    extraFinal    = recalc[1];
-                    netoFinal     = recalc[2];
-                }
+        if (!isAusencia && !isSalidaJustificada && !isOtro) {
+            int[] recalc = recomputeMinutesWithEarlyLeave(
+                    row,
+                    turnoFinal,
+                    entradaFinal,
+                    salidaFinal
+            );
+            if (recalc != null) {
+                tardanzaFinal = recalc[0];
+                extraFinal    = recalc[1];
+                netoFinal     = recalc[2];
             }
-            // --------------------------------------------
+        }
+        // --------------------------------------------
 // REGLAS ESPECIALES DE SÁBADO PARA TURNO A
 // --------------------------------------------
-            LocalDate dateFix = LocalDate.parse(row.getFecha());
-            DayOfWeek dowFix  = dateFix.getDayOfWeek();
-            boolean isSaturdayFix = (dowFix == DayOfWeek.SATURDAY);
-            boolean turnoA = "A".equalsIgnoreCase(turnoFinal);
-
-            if (isSaturdayFix && turnoA) {
-
-                int workedMinutes = 0;
-                try {
-                    LocalTime inT  = LocalTime.parse(entradaFinal);
-                    LocalTime outT = LocalTime.parse(salidaFinal);
-                    workedMinutes = (int) Duration.between(inT, outT).toMinutes();
-                } catch (Exception ignore) {}
-
-                // --- 1) HORAS EXTRA ---
-                if (descFinal != null && descFinal.toLowerCase().contains("extra")) {
-                    extraFinal = workedMinutes;   // TODO: si querés convertirlos a 50% agregar acá
-                    netoFinal  = workedMinutes;   // suma como extra al neto
-                    tardanzaFinal = 0;
-                }
+        LocalDate dateFix = row.getDate();
+        DayOfWeek dowFix  = dateFix.getDayOfWeek();
+        boolean isSaturdayFix = (dowFix == DayOfWeek.SATURDAY);
+        boolean turnoA = "A".equalsIgnoreCase(turnoFinal);
 
-                // --- 2) ADEUDADO ---
-                else if (descFinal != null && descFinal.toLowerCase().contains("adeud")) {
-                    extraFinal = 0;               // NO es hora extra
-                    netoFinal  = workedMinutes;   // suma como hora normal
-                    tardanzaFinal = 0;
-                }
-            }
+        if (isSaturdayFix && turnoA) {
 
-            // Creamos una nueva CalcRow con los valores finales
-            MainView.CalcRow newRow = new MainView.CalcRow(
-                    row.getFecha(),
-                    row.getUsuario(),
-                    turnoFinal,
-                    entradaFinal,
-                    salidaFinal,
-                    tardanzaFinal,
-                    extraFinal,
-                    netoFinal,
-                    descFinal,
-                    row.getEstado()
-            );
-            newRow.setExtraStart(row.getExtraStart());
-            newRow.setExtraEnd(row.getExtraEnd());
-            // Copiamos también los campos "extra" ya calculados
+            int workedMinutes = 0;
             try {
-                newRow.setExtra50Hours(row.getExtra50Hours());
-                newRow.setExtra100Hours(row.getExtra100Hours());
-                newRow.setFlag50(row.getFlag50());
-                newRow.setFlag100(row.getFlag100());
-                newRow.setRawEntrada(row.getRawEntrada());
-                newRow.setRawSalida(row.getRawSalida());
-            } catch (NoSuchMethodError | UnsupportedOperationException ignored) {
-                // Por si alguna de estas propiedades no existiera en tu versión
+                LocalTime inT  = LocalTime.parse(entradaFinal);
+                LocalTime outT = LocalTime.parse(salidaFinal);
+                workedMinutes = (int) Duration.between(inT, outT).toMinutes();
+            } catch (Exception ignore) {}
+
+            // --- 1) HORAS EXTRA ---
+            if (descFinal != null && descFinal.toLowerCase().contains("extra")) {
+                extraFinal = workedMinutes;   // TODO: si querés convertirlos a 50% agregar acá
+                netoFinal  = workedMinutes;   // suma como extra al neto
+                tardanzaFinal = 0;
+            }
+
+            // --- 2) ADEUDADO ---
+            else if (descFinal != null && descFinal.toLowerCase().contains("adeud")) {
+                extraFinal = 0;               // NO es hora extra
+                netoFinal  = workedMinutes;   // suma como hora normal
+                tardanzaFinal = 0;
             }
+        }
 
-            result.add(newRow);
+        // Creamos una nueva CalcRow con los valores finales
+        MainView.CalcRow newRow = new MainView.CalcRow(
+                row.getFecha(),
+                row.getUsuario(),
+                turnoFinal,
+                entradaFinal,
+                salidaFinal,
+                tardanzaFinal,
+                extraFinal,
+                netoFinal,
+                descFinal,
+                row.getEstado()
+        ).reuseParsed(row).markCreatedInPass();
+        newRow.setExtraStart(row.getExtraStart());
+        newRow.setExtraEnd(row.getExtraEnd());
+        // Copiamos también los campos "extra" ya calculados
+        try {
+            newRow.setExtra50Hours(row.getExtra50Hours());
+            newRow.setExtra100Hours(row.getExtra100Hours());
+            newRow.setFlag50(row.getFlag50());
+            newRow.setFlag100(row.getFlag100());
+            newRow.setRawEntrada(row.getRawEntrada());
+            newRow.setRawSalida(row.getRawSalida());
+        } catch (NoSuchMethodError | UnsupportedOperationException ignored) {
+            // Por si alguna de estas propiedades no existiera en tu versión
         }
 
-        return result;
+        out.accept(newRow);
     }
 
     // ========================================================================
@@ -312,7 +328,7 @@ public class ExceptionApplier {
             if (entradaFinal == null || entradaFinal.isBlank()) return null;
             if (salidaFinal == null || salidaFinal.isBlank()) return null;
 
-            LocalDate date = LocalDate.parse(row.getFecha());
+            LocalDate date = row.getDate();
             LocalTime inT  = LocalTime.parse(entradaFinal);
             LocalTime outT = LocalTime.parse(salidaFinal);
 
@@ -341,9 +357,10 @@ public class ExceptionApplier {
                 return new int[]{tardMin, extraMin, netoMin};
             }
 
-            long tard   = ScheduleService.tardinessRounded(inDT, shift, dow);
-            long extra  = ScheduleService.overtimeRounded(inDT, outDT, shift, dow);
-            long early  = ScheduleService.earlyLeaveRounded(inDT, outDT, shift, dow);
+            long att    = ScheduleService.attendance(inDT, outDT, shift, dow);
+            long tard   = ScheduleService.tardiness(att);
+            long extra  = ScheduleService.overtime(att);
+            long early  = ScheduleService.earlyLeave(att);
 
             int tardMin  = (int) (tard + early); // entrada tarde + salida anticipada
             int extraMin = (int) extra;
@@ -361,76 +378,17 @@ public class ExceptionApplier {
         }
     }
 
-    /**
-     * Calcula la mayoría de turno por usuario y por semana (ID = lunes).
-     *
-     * Para cada usuario y cada semana:
-     *  - Cuenta cuántas filas tienen turno A y cuántas turno B.
-     *  - Si empata A>=B → A; si no → B.
-     */
-    public static Map<String, Map<LocalDate, ScheduleService.Shift>> computeMajorityShiftPerUserWeek(
-            List<MainView.CalcRow> rows
-    ) {
-        // user -> (weekId -> [countA, countB])
-        Map<String, Map<LocalDate, int[]>> counts = new HashMap<>();
-
-        for (MainView.CalcRow r : rows) {
-            if (r == null) continue;
-
-            String user  = r.getUsuario();
-            String turno = r.getTurno();
-            String fecha = r.getFecha();
-
-            if (user == null || user.isBlank())   continue;
-            if (turno == null || turno.isBlank()) continue;
-            if (fecha == null || fecha.isBlank()) continue;
-
-            LocalDate date   = LocalDate.parse(fecha);
-            LocalDate weekId = date.with(DayOfWeek.MONDAY);
-
-            Map<LocalDate, int[]> byWeek =
-                    counts.computeIfAbsent(user, u -> new HashMap<>());
-
-            int[] c = byWeek.computeIfAbsent(weekId, w -> new int[2]);
-            if ("A".equalsIgnoreCase(turno)) {
-                c[0]++; // A
-            } else if ("B".equalsIgnoreCase(turno)) {
-                c[1]++; // B
-            }
-        }
-
-        // Convertimos a user -> weekId -> Shift
-        Map<String, Map<LocalDate, ScheduleService.Shift>> result = new HashMap<>();
-
-        for (var userEntry : counts.entrySet()) {
-            String user = userEntry.getKey();
-            Map<LocalDate, int[]> byWeek = userEntry.getValue();
-
-            Map<LocalDate, ScheduleService.Shift> perWeek = new HashMap<>();
-            for (var e : byWeek.entrySet()) {
-                LocalDate weekId = e.getKey();
-                int[] c = e.getValue(); // [A,B]
-
-                if (c[0] == 0 && c[1] == 0) continue;
-
-                ScheduleService.Shift maj =
-                        (c[0] >= c[1]) ? ScheduleService.Shift.A : ScheduleService.Shift.B;
-                perWeek.put(weekId, maj);
-            }
-
-            result.put(user, perWeek);
-        }
-
-
-
-        return result;
+    /** Mayoría semanal del usuario; las filas sin usuario nunca tienen mayoría. */
+    private static ScheduleService.Shift majority(WeekShiftIndex weekShifts, String usuario, LocalDate date) {
+        if (weekShifts == null || usuario == null || usuario.isBlank()) return null;
+        return weekShifts.majority(usuario, date);
     }
     private static boolean isRetirada(
             MainView.CalcRow row,
             Set<LocalDate> holidays
     ) {
         try {
-            LocalDate date = LocalDate.parse(row.getFecha());
+            LocalDate date = row.getDate();
             DayOfWeek dow = date.getDayOfWeek();
 
             boolean isHoliday = holidays != null && holidays.contains(date);
@@ -456,7 +414,7 @@ public class ExceptionApplier {
 
     public static boolean shouldGoToExceptions(
             MainView.CalcRow row,
-            Map<String, Map<LocalDate, ScheduleService.Shift>> majorityPerUserWeek,
+            WeekShiftIndex weekShifts,
             Set<LocalDate> holidays
     ) {
         if (row == null) return false;
@@ -464,7 +422,7 @@ public class ExceptionApplier {
         String fechaStr = row.getFecha();
         if (fechaStr == null || fechaStr.isBlank()) return false;
 
-        LocalDate date = LocalDate.parse(fechaStr);
+        LocalDate date = row.getDate();
         DayOfWeek dow  = date.getDayOfWeek();
 
         boolean isSunday  = (dow == DayOfWeek.SUNDAY);
@@ -509,12 +467,8 @@ public class ExceptionApplier {
             if ("A".equalsIgnoreCase(turnoStr)) effectiveShift = ScheduleService.Shift.A;
             else if ("B".equalsIgnoreCase(turnoStr)) effectiveShift = ScheduleService.Shift.B;
 
-            if (effectiveShift == null && majorityPerUserWeek != null) {
-                Map<LocalDate, ScheduleService.Shift> weeks = majorityPerUserWeek.get(row.getUsuario());
-                if (weeks != null) {
-                    LocalDate weekId = date.with(DayOfWeek.MONDAY);
-                    effectiveShift = weeks.get(weekId);
-                }
+            if (effectiveShift == null) {
+                effectiveShift = majority(weekShifts, row.getUsuario(), date);
             }
 
             if (effectiveShift == ScheduleService.Shift.A && !hasMarks) return false;
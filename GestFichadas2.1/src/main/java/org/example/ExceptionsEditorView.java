@@ -2,7 +2,6 @@ package org.example;
 
 import java.time.*;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -97,40 +96,46 @@ public class ExceptionsEditorView {
     private final List<ExceptionFix> externalFixes = new ArrayList<>();
     private final LocalDate visibleFrom;
     private final LocalDate visibleTo;
-    // Mapa (usuario|lunesSemana) -> turno mayoritario (A/B)
-    private final Map<String, ScheduleService.Shift> majorityByUserWeek;
+    // Turno mayoritario (A/B) por usuario y semana de baseRows
+    private final WeekShiftIndex weekShifts;
 
     public ExceptionsEditorView(Stage owner,
                                 List<MainView.CalcRow> baseRows,
                                 Set<LocalDate> holidays,
                                 LocalDate visibleFrom,
                                 LocalDate visibleTo) {
+        this(owner, baseRows, WeekShiftIndex.of(baseRows), holidays, visibleFrom, visibleTo);
+    }
+
+    /** @param weekShifts mayoría semanal ya indexada sobre baseRows (la de la carga) */
+    public ExceptionsEditorView(Stage owner,
+                                List<MainView.CalcRow> baseRows,
+                                WeekShiftIndex weekShifts,
+                                Set<LocalDate> holidays,
+                                LocalDate visibleFrom,
+                                LocalDate visibleTo) {
         this.holidays = (holidays == null) ? Set.of() : holidays;
         this.baseRows = new ArrayList<>(baseRows); // snapshot defensivo
         this.visibleFrom = visibleFrom;
         this.visibleTo = visibleTo;
 
-
-        Map<String, Map<LocalDate, ScheduleService.Shift>> majorityPerUserWeek2 =
-                ExceptionApplier.computeMajorityShiftPerUserWeek(this.baseRows);
-
         stage.initOwner(owner);
         stage.initModality(Modality.WINDOW_MODAL);
         stage.setTitle("Corregir excepciones");
 
-        // 1) Mapa (usuario|semana) -> turno mayoritario (A/B)
-        this.majorityByUserWeek = buildMajorityShiftMap(this.baseRows);
+        // 1) Turno mayoritario por usuario y semana (compartido con ExceptionApplier / UserExceptionsView)
+        this.weekShifts = weekShifts;
 
         // 2) Filtrar sólo INCOMPLETO / SIN_MARCAS,
         //    pero en domingos/feriados sólo si hay al menos una marca.
         var problemRows = this.baseRows.stream()
                 .filter(r -> {
-                    LocalDate d = LocalDate.parse(r.getFecha());
+                    LocalDate d = r.getDate();
                     return (!d.isBefore(visibleFrom) && !d.isAfter(visibleTo));
                 })
                 .filter(r -> ExceptionApplier.shouldGoToExceptions(
                         r,
-                        majorityPerUserWeek2,
+                        weekShifts,
                         this.holidays
                 ))
                 .collect(Collectors.toList());
@@ -139,10 +144,8 @@ public class ExceptionsEditorView {
 
         // 3) Crear filas de edición con turno y horas por defecto
         for (MainView.CalcRow r : problemRows) {
-            LocalDate date = LocalDate.parse(r.getFecha());
+            LocalDate date = r.getDate();
             DayOfWeek dow = date.getDayOfWeek();
-            LocalDate weekId = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-            String uwKey = r.getUsuario() + "|" + weekId;
 
             String turnoOriginal = r.getTurno();
             ScheduleService.Shift shift = null;
@@ -158,7 +161,7 @@ public class ExceptionsEditorView {
 
 // 2) Si no teníamos turno en la fila, usamos la mayoría semanal
             if (shift == null) {
-                ScheduleService.Shift maj = majorityByUserWeek.get(uwKey);
+                ScheduleService.Shift maj = weekShifts.majority(r.getUsuario(), date);
                 if (maj != null) {
                     shift = maj;
                 } else {
@@ -207,11 +210,11 @@ public class ExceptionsEditorView {
                 salidaFinal  = salidaReal;
             }
             String estadoParaEditor = r.getEstado();
-            if (ExceptionApplier.shouldGoToExceptions(r, majorityPerUserWeek2, this.holidays)) {
+            if (ExceptionApplier.shouldGoToExceptions(r, weekShifts, this.holidays)) {
                 // ya está en problemRows, pero acá queremos el label
                 // marcamos RETIRADA si corresponde
                 try {
-                    LocalDate d = LocalDate.parse(r.getFecha());
+                    LocalDate d = r.getDate();
                     boolean isHoliday = holidays.contains(d);
                     boolean isSaturday = d.getDayOfWeek() == DayOfWeek.SATURDAY;
                     boolean isSunday = d.getDayOfWeek() == DayOfWeek.SUNDAY;
@@ -272,13 +275,11 @@ public class ExceptionsEditorView {
        ========================= */
 
     private void onUserExceptions() {
-        // Versión "normalizada" de baseRows, donde el turno se fija según majorityByUserWeek
+        // Versión "normalizada" de baseRows, donde el turno se fija según la mayoría semanal
         List<MainView.CalcRow> normalized = baseRows.stream()
                 .map(r -> {
-                    LocalDate date = LocalDate.parse(r.getFecha());
-                    LocalDate weekId = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-                    String key = r.getUsuario() + "|" + weekId;
-                    ScheduleService.Shift maj = majorityByUserWeek.get(key);
+                    LocalDate date = r.getDate();
+                    ScheduleService.Shift maj = weekShifts.majority(r.getUsuario(), date);
 
                     if (maj == null) {
                         return r;
@@ -300,14 +301,14 @@ public class ExceptionsEditorView {
                             r.getNeto(),
                             r.getDescripcion(),
                             r.getEstado()
-                    );
+                    ).reuseParsed(r);
                     copy.setExtra50Hours(r.getExtra50Hours());
                     copy.setExtra100Hours(r.getExtra100Hours());
                     return copy;
                 })
                 .collect(Collectors.toList());
 
-        UserExceptionsView uv = new UserExceptionsView(stage, normalized, holidays, visibleFrom, visibleTo);
+        UserExceptionsView uv = new UserExceptionsView(stage, normalized, weekShifts, holidays, visibleFrom, visibleTo);
         uv.showAndWait();
 
         List<ExceptionFix> fixes = uv.getResult();
@@ -558,40 +559,6 @@ public class ExceptionsEditorView {
                 .showAndWait();
     }
 
-    /* =========================
-       Mayoría de turno por semana
-       ========================= */
-
-    private Map<String, ScheduleService.Shift> buildMajorityShiftMap(List<MainView.CalcRow> baseRows) {
-        Map<String, int[]> counts = new HashMap<>();
-
-        for (MainView.CalcRow r : baseRows) {
-            String turno = r.getTurno();
-            if (turno == null || turno.isBlank()) continue;
-
-            LocalDate date = LocalDate.parse(r.getFecha());
-            LocalDate weekId = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-            String key = r.getUsuario() + "|" + weekId;
-
-            int[] c = counts.computeIfAbsent(key, k -> new int[2]);
-            if ("A".equalsIgnoreCase(turno)) {
-                c[0]++; // A
-            } else if ("B".equalsIgnoreCase(turno)) {
-                c[1]++; // B
-            }
-        }
-
-        Map<String, ScheduleService.Shift> result = new HashMap<>();
-        for (var e : counts.entrySet()) {
-            int[] c = e.getValue();
-            if (c[0] == 0 && c[1] == 0) continue;
-            ScheduleService.Shift maj =
-                    (c[0] >= c[1]) ? ScheduleService.Shift.A : ScheduleService.Shift.B;
-            result.put(e.getKey(), maj);
-        }
-        return result;
-    }
-
     /* =========================
        API pública
        ========================= */
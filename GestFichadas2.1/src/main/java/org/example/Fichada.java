@@ -1,6 +1,13 @@
 package org.example;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
 
 /** Log crudo mínimo. */
-public record Fichada(long id, LocalDateTime dateTime, Long userId) {}
+public record Fichada(long id, LocalDateTime dateTime, Long userId) {
+
+    /** Orden que esperan CalcRowService/FichadaService: usuario (nulls al final) y luego fecha/hora. */
+    public static final Comparator<Fichada> BY_USER_AND_TIME = Comparator
+            .comparing(Fichada::userId, Comparator.nullsLast(Long::compareTo))
+            .thenComparing(Fichada::dateTime);
+}
@@ -0,0 +1,314 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Lote de fichadas en columnas primitivas, en el orden de Fichada.BY_USER_AND_TIME:
+ * - epochSecond[i]: fecha-hora local en segundos epoch (tomada como UTC, igual que los clientes).
+ * - userIndex[i]:   posición del usuario en userIds (ids ascendentes; NO_USER, si hay, va último).
+ * - id[i]:          id de la fichada.
+ * - Las fichadas del usuario u ocupan [start(u), end(u)), ordenadas por fecha-hora.
+ *
+ * Son ~20 bytes por fichada contra 80+ de una Fichada con LocalDateTime y Long:
+ * los meses de millones de fichadas entran en un heap chico y se recorren sin boxing.
+ * Inmutable una vez construido (Builder).
+ */
+public final class FichadaBatch {
+
+    /** userId de las fichadas sin usuario (Fichada.userId() == null). */
+    public static final long NO_USER = Long.MIN_VALUE;
+
+    public static final FichadaBatch EMPTY = new Builder().build();
+
+    private final long[] epochSecond;
+    private final int[] userIndex;
+    private final long[] id;
+    private final long[] userIds;
+    private final int[] userStart; // userIds.length + 1
+
+    private FichadaBatch(long[] epochSecond, int[] userIndex, long[] id, long[] userIds, int[] userStart) {
+        this.epochSecond = epochSecond;
+        this.userIndex = userIndex;
+        this.id = id;
+        this.userIds = userIds;
+        this.userStart = userStart;
+    }
+
+    /* ======================== Acceso ======================== */
+
+    public int size() {
+        return id.length;
+    }
+
+    public int userCount() {
+        return userIds.length;
+    }
+
+    /** Id del usuario u (NO_USER para el grupo de fichadas sin usuario). */
+    public long userId(int u) {
+        return userIds[u];
+    }
+
+    public int start(int u) {
+        return userStart[u];
+    }
+
+    public int end(int u) {
+        return userStart[u + 1];
+    }
+
+    public long epochSecond(int i) {
+        return epochSecond[i];
+    }
+
+    public int userIndex(int i) {
+        return userIndex[i];
+    }
+
+    public long id(int i) {
+        return id[i];
+    }
+
+    public LocalDateTime dateTime(int i) {
+        return LocalDateTime.ofEpochSecond(epochSecond[i], 0, ZoneOffset.UTC);
+    }
+
+    /** Primera fichada del usuario u con epochSecond >= sec (end(u) si no hay). */
+    public int lowerBound(int u, long sec) {
+        int a = userStart[u], b = userStart[u + 1];
+        while (a < b) {
+            int mid = (a + b) >>> 1;
+            if (epochSecond[mid] < sec) a = mid + 1; else b = mid;
+        }
+        return a;
+    }
+
+    /* ======================== Conversión ======================== */
+
+    public static long toEpochSecond(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static long toEpochSecond(LocalDate d) {
+        return d.toEpochDay() * 86_400L;
+    }
+
+    public static FichadaBatch of(List<Fichada> logs) {
+        Builder b = new Builder(logs.size());
+        for (Fichada f : logs) b.add(f);
+        return b.build();
+    }
+
+    /** Vista como lista de Fichada (mismo orden), compartiendo un Long por usuario. */
+    public List<Fichada> toList() {
+        return toList(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /** Solo las fichadas con epochSecond en [fromSec, toSec). */
+    public List<Fichada> toList(long fromSec, long toSec) {
+        List<Fichada> out = new ArrayList<>();
+        for (int u = 0; u < userIds.length; u++) {
+            Long user = (userIds[u] == NO_USER) ? null : userIds[u];
+            for (int i = lowerBound(u, fromSec); i < end(u) && epochSecond[i] < toSec; i++) {
+                out.add(new Fichada(id[i], dateTime(i), user));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Une lotes de períodos consecutivos (cada uno posterior al anterior, ej. meses),
+     * quedándose con [fromSec, toSec). Por usuario es una concatenación: no hace falta reordenar.
+     */
+    public static FichadaBatch concat(List<FichadaBatch> parts, long fromSec, long toSec) {
+        long[] users = new long[0];
+        for (FichadaBatch p : parts) users = union(users, p.userIds);
+
+        Builder b = new Builder();
+        int[] cursor = new int[parts.size()];
+        for (long user : users) {
+            for (int k = 0; k < parts.size(); k++) {
+                FichadaBatch p = parts.get(k);
+                // userIds de cada parte está ordenado igual que users: se avanza un cursor
+                while (cursor[k] < p.userIds.length && before(p.userIds[cursor[k]], user)) cursor[k]++;
+                if (cursor[k] == p.userIds.length || p.userIds[cursor[k]] != user) continue;
+                int u = cursor[k];
+                for (int i = p.lowerBound(u, fromSec); i < p.end(u) && p.epochSecond[i] < toSec; i++) {
+                    b.add(p.id[i], p.epochSecond[i], user);
+                }
+            }
+        }
+        return b.build();
+    }
+
+    /** Orden de usuarios: ids ascendentes y NO_USER al final. */
+    private static boolean before(long a, long b) {
+        if (a == b) return false;
+        if (a == NO_USER) return false;
+        if (b == NO_USER) return true;
+        return a < b;
+    }
+
+    private static long[] union(long[] a, long[] b) {
+        long[] out = new long[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            long x;
+            if (j == b.length || (i < a.length && !before(b[j], a[i]))) x = a[i++];
+            else x = b[j++];
+            if (n == 0 || out[n - 1] != x) out[n++] = x;
+            // el otro lado puede tener el mismo id en su cabeza
+            if (i < a.length && a[i] == x) i++;
+            if (j < b.length && b[j] == x) j++;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /* ======================== Construcción ======================== */
+
+    /**
+     * Acumula fichadas en cualquier orden y las ordena en build() (estable: los empates
+     * quedan en orden de llegada). Si llegan ya ordenadas (caso de los clientes que
+     * leen ordenado) build() no ordena nada.
+     */
+    public static final class Builder {
+        private long[] sec;
+        private long[] uid;
+        private long[] ids;
+        private int n;
+        private boolean sorted = true;
+
+        public Builder() {
+            this(1024);
+        }
+
+        public Builder(int expected) {
+            int cap = Math.max(16, expected);
+            sec = new long[cap];
+            uid = new long[cap];
+            ids = new long[cap];
+        }
+
+        public Builder add(Fichada f) {
+            return add(f.id(), toEpochSecond(f.dateTime()), f.userId() == null ? NO_USER : f.userId());
+        }
+
+        /** @param userId id del usuario o NO_USER */
+        public Builder add(long id, long epochSecond, long userId) {
+            if (n == ids.length) {
+                int cap = n * 2;
+                sec = Arrays.copyOf(sec, cap);
+                uid = Arrays.copyOf(uid, cap);
+                ids = Arrays.copyOf(ids, cap);
+            }
+            if (sorted && n > 0) {
+                long pu = uid[n - 1];
+                if (before(userId, pu) || (pu == userId && epochSecond < sec[n - 1])) sorted = false;
+            }
+            sec[n] = epochSecond;
+            uid[n] = userId;
+            ids[n] = id;
+            n++;
+            return this;
+        }
+
+        public int size() {
+            return n;
+        }
+
+        public FichadaBatch build() {
+            int[] order = sorted ? null : sortOrder();
+
+            long[] outSec = new long[n];
+            long[] outId = new long[n];
+            int[] outUser = new int[n];
+            long[] users = new long[16];
+            int[] starts = new int[17];
+            int u = -1;
+
+            for (int k = 0; k < n; k++) {
+                int i = (order == null) ? k : order[k];
+                if (u < 0 || users[u] != uid[i]) {
+                    u++;
+                    if (u == users.length) {
+                        users = Arrays.copyOf(users, u * 2);
+                        starts = Arrays.copyOf(starts, u * 2 + 1);
+                    }
+                    users[u] = uid[i];
+                    starts[u] = k;
+                }
+                outSec[k] = sec[i];
+                outId[k] = ids[i];
+                outUser[k] = u;
+            }
+            int count = u + 1;
+            starts[count] = n;
+            return new FichadaBatch(outSec, outUser, outId,
+                    Arrays.copyOf(users, count), Arrays.copyOf(starts, count + 1));
+        }
+
+        /**
+         * Orden estable por (usuario, fecha-hora): primero un counting sort por usuario
+         * y después, dentro de cada usuario, un sort de claves long (segundos relativos | posición).
+         */
+        private int[] sortOrder() {
+            long[] distinct = Arrays.copyOf(uid, n);
+            Arrays.sort(distinct);
+            int d = 0;
+            for (int i = 0; i < n; i++) {
+                if (i == 0 || distinct[i] != distinct[i - 1]) distinct[d++] = distinct[i];
+            }
+            distinct = Arrays.copyOf(distinct, d);
+            // NO_USER (= Long.MIN_VALUE) quedó primero: va al final
+            boolean noUser = d > 0 && distinct[0] == NO_USER;
+
+            int[] rank = new int[n];
+            int[] count = new int[d + 1];
+            for (int i = 0; i < n; i++) {
+                int r = Arrays.binarySearch(distinct, uid[i]);
+                r = noUser ? (r == 0 ? d - 1 : r - 1) : r;
+                rank[i] = r;
+                count[r + 1]++;
+            }
+            for (int r = 0; r < d; r++) count[r + 1] += count[r];
+
+            int[] order = new int[n];
+            int[] fill = Arrays.copyOf(count, d);
+            for (int i = 0; i < n; i++) order[fill[rank[i]]++] = i;
+
+            for (int r = 0; r < d; r++) sortByTime(order, count[r], count[r + 1]);
+            return order;
+        }
+
+        /** order[from..to) (un usuario, posiciones crecientes) ordenado por fecha-hora, estable. */
+        private void sortByTime(int[] order, int from, int to) {
+            int len = to - from;
+            if (len < 2) return;
+            long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+            for (int k = from; k < to; k++) {
+                min = Math.min(min, sec[order[k]]);
+                max = Math.max(max, sec[order[k]]);
+            }
+            int posBits = 64 - Long.numberOfLeadingZeros(len);
+            long span = max - min;
+            if (span >= 0 && 64 - Long.numberOfLeadingZeros(span) + posBits <= 63) {
+                long[] keys = new long[len];
+                for (int k = 0; k < len; k++) keys[k] = ((sec[order[from + k]] - min) << posBits) | k;
+                Arrays.sort(keys);
+                int[] copy = Arrays.copyOfRange(order, from, to);
+                long mask = (1L << posBits) - 1;
+                for (int k = 0; k < len; k++) order[from + k] = copy[(int) (keys[k] & mask)];
+            } else {
+                Integer[] boxed = new Integer[len];
+                for (int k = 0; k < len; k++) boxed[k] = order[from + k];
+                Arrays.sort(boxed, (a, b) -> Long.compare(sec[a], sec[b])); // TimSort: estable
+                for (int k = 0; k < len; k++) order[from + k] = boxed[k];
+            }
+        }
+    }
+}
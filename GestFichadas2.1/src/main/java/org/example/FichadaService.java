@@ -143,104 +143,124 @@ public class FichadaService {
      * - Si no hay fichadas ese día => SIN_MARCAS (rojo).
      * - Si hay fichadas pero solo entrada o solo salida => INCOMPLETO (amarillo).
      * - Si hay entrada+salida válidas => OK.
+     *
+     * Las marcas se toman con precisión de segundos (igual que FichadaBatch).
      */
     public static List<DailySessionRow> buildDailyRows(
             List<Fichada> userLogs,
             LocalDate from,
             LocalDate to
     ) {
-        List<DailySessionRow> result = new ArrayList<>();
-
         if (from == null || to == null || from.isAfter(to)) {
-            return result;
+            return new ArrayList<>();
         }
-        if (userLogs == null || userLogs.isEmpty()) {
-            // Sin logs: todos los días son SIN_MARCAS
-            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
-                result.add(new DailySessionRow(d, null, null, EstadoDia.SIN_MARCAS));
-            }
-            return result;
+
+        // Todas las marcas como un único grupo (el Builder las ordena por fecha/hora)
+        FichadaBatch.Builder b = new FichadaBatch.Builder(userLogs == null ? 0 : userLogs.size());
+        if (userLogs != null) {
+            for (Fichada f : userLogs) b.add(f.id(), FichadaBatch.toEpochSecond(f.dateTime()), 0L);
         }
+        FichadaBatch batch = b.build();
+        return batch.userCount() == 0
+                ? buildDailyRows(batch, 0, 0, from, to)
+                : buildDailyRows(batch, batch.start(0), batch.end(0), from, to);
+    }
 
-        // Ordenamos por fecha/hora
-        List<Fichada> sorted = new ArrayList<>(userLogs);
-        sorted.sort(Comparator.comparing(Fichada::dateTime));
+    /**
+     * Igual que buildDailyRows(List, ...) pero para el usuario u de un FichadaBatch
+     * (sus marcas ya vienen ordenadas: no hay Fichada ni Long de por medio).
+     */
+    public static List<DailySessionRow> buildDailyRows(
+            FichadaBatch batch,
+            int u,
+            LocalDate from,
+            LocalDate to
+    ) {
+        if (from == null || to == null || from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        return buildDailyRows(batch, batch.start(u), batch.end(u), from, to);
+    }
 
-        // Agrupamos por día local
-        Map<LocalDate, List<LocalDateTime>> byDay = sorted.stream()
-                .collect(Collectors.groupingBy(f -> f.dateTime().toLocalDate(),
-                        TreeMap::new,
-                        Collectors.mapping(Fichada::dateTime, Collectors.toList())));
+    /* Ventanas en segundos del día (mismas reglas que las constantes LocalTime de arriba) */
+    private static final long DAY_SECONDS      = 86_400L;
+    private static final long IN_START_SEC     = IN_WINDOW_START.toSecondOfDay();
+    private static final long IN_END_SEC       = IN_WINDOW_END.toSecondOfDay();
+    private static final long OUT_START_SEC    = OUT_WINDOW_START.toSecondOfDay();
+    private static final long OUT_NEXTDAY_SEC  = OUT_NEXTDAY_LIMIT.toSecondOfDay();
 
-        // Recorremos día por día en el rango solicitado (aunque no haya logs ese día)
+    /**
+     * Núcleo de buildDailyRows: un cursor sobre las marcas [lo, hi) ya ordenadas, en una
+     * sola pasada (cada marca se mira como "hoy" y, a lo sumo, como "mañana hasta 08:00").
+     * Sin mapas ni streams: solo se crean los LocalDateTime de la entrada/salida elegidas.
+     *
+     * Por día D (marcas de hoy = [p, q)):
+     * - Domingo: primera y última marca (OK), una sola (INCOMPLETO) o ninguna (SIN_MARCAS).
+     * - Entrada: primera marca en [IN_WINDOW_START, IN_WINDOW_END).
+     * - Salida: la última de hoy si es >= OUT_WINDOW_START; si no, la última de D+1
+     *   que sea <= OUT_NEXTDAY_LIMIT.
+     * - Duración fuera de [MIN_SESSION_HOURS, MAX_SESSION_HOURS] (horas enteras) => INCOMPLETO.
+     */
+    private static List<DailySessionRow> buildDailyRows(
+            FichadaBatch b,
+            int lo,
+            int hi,
+            LocalDate from,
+            LocalDate to
+    ) {
+        List<DailySessionRow> result = new ArrayList<>((int) (to.toEpochDay() - from.toEpochDay() + 1));
+
+        int p = lo;
         for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
-            DayOfWeek dow = day.getDayOfWeek();
-            if (dow == DayOfWeek.SUNDAY) {
+            long dayStart  = day.toEpochDay() * DAY_SECONDS;
+            long nextStart = dayStart + DAY_SECONDS;
 
-                List<LocalDateTime> tsToday = byDay.getOrDefault(day, List.of());
+            while (p < hi && b.epochSecond(p) < dayStart) p++;
+            int q = p;
+            while (q < hi && b.epochSecond(q) < nextStart) q++;
 
-                if (tsToday.size() >= 2) {
+            if (day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                if (q - p >= 2) {
                     // Tomamos primera y última marca del día
-                    LocalDateTime in  = tsToday.get(0);
-                    LocalDateTime out = tsToday.get(tsToday.size() - 1);
-
-                    result.add(new DailySessionRow(
-                            day,
-                            in,
-                            out,
-                            EstadoDia.OK
-                    ));
-                } else if (tsToday.size() == 1) {
-                    result.add(new DailySessionRow(
-                            day,
-                            tsToday.get(0),
-                            null,
-                            EstadoDia.INCOMPLETO
-                    ));
+                    result.add(new DailySessionRow(day, b.dateTime(p), b.dateTime(q - 1), EstadoDia.OK));
+                } else if (q - p == 1) {
+                    result.add(new DailySessionRow(day, b.dateTime(p), null, EstadoDia.INCOMPLETO));
                 } else {
-                    result.add(new DailySessionRow(
-                            day,
-                            null,
-                            null,
-                            EstadoDia.SIN_MARCAS
-                    ));
+                    result.add(new DailySessionRow(day, null, null, EstadoDia.SIN_MARCAS));
                 }
-
                 continue; // ⛔ IMPORTANTÍSIMO: NO sigue con lógica normal
             }
-            List<LocalDateTime> tsToday = byDay.getOrDefault(day, List.of());
-            List<LocalDateTime> tsNext  = byDay.getOrDefault(day.plusDays(1), List.of());
 
-            if (tsToday.isEmpty()) {
+            if (p == q) {
                 // Día sin ninguna marca
                 result.add(new DailySessionRow(day, null, null, EstadoDia.SIN_MARCAS));
                 continue;
             }
 
             // ====== BUSCAMOS ENTRADA ======
-            LocalDateTime in = tsToday.stream()
-                    .filter(t -> betweenInclusiveExclusive(t.toLocalTime(), IN_WINDOW_START, IN_WINDOW_END))
-                    .min(LocalDateTime::compareTo)
-                    .orElse(null);
+            int in = -1;
+            for (int i = p; i < q; i++) {
+                long sod = b.epochSecond(i) - dayStart;
+                if (sod >= IN_END_SEC) break;
+                if (sod >= IN_START_SEC) {
+                    in = i;
+                    break;
+                }
+            }
 
             // ====== BUSCAMOS SALIDA ======
-            Optional<LocalDateTime> outSameDay = tsToday.stream()
-                    .filter(t -> !t.toLocalTime().isBefore(OUT_WINDOW_START)) // t >= 12:00
-                    .max(LocalDateTime::compareTo);
-
-            LocalDateTime outTs = outSameDay.orElse(null);
-
-            if (outTs == null) {
-                Optional<LocalDateTime> outNextDay = tsNext.stream()
-                        .filter(t -> !t.toLocalTime().isAfter(OUT_NEXTDAY_LIMIT)) // t <= 07:00
-                        .max(LocalDateTime::compareTo);
-                outTs = outNextDay.orElse(null);
+            int out = (b.epochSecond(q - 1) - dayStart >= OUT_START_SEC) ? q - 1 : -1;
+            if (out < 0) {
+                int r = q;
+                while (r < hi && b.epochSecond(r) <= nextStart + OUT_NEXTDAY_SEC) r++;
+                if (r > q) out = r - 1;
             }
 
-            LocalDateTime outFixed = outTs;
+            LocalDateTime inTs     = (in < 0) ? null : b.dateTime(in);
+            LocalDateTime outFixed = (out < 0) ? null : b.dateTime(out);
 
             // Ajuste de “cruce raro”: si salida < entrada y no cumple la regla de cruce permitido
-            if (in != null && outFixed != null && outFixed.isBefore(in)) {
+            if (inTs != null && outFixed != null && outFixed.isBefore(inTs)) {
                 if (outFixed.toLocalDate().isAfter(day) && !outFixed.toLocalTime().isAfter(OUT_NEXTDAY_LIMIT)) {
                     // OK, salida temprana del día siguiente
                 } else {
@@ -252,11 +272,11 @@ public class FichadaService {
             // ====== DECIDIMOS ESTADO ======
             EstadoDia estado;
 
-            if (in == null && outFixed == null) {
+            if (inTs == null && outFixed == null) {
                 // Hubo fichadas pero ninguna cae en ventanas “entrada” ni “salida”
                 estado = EstadoDia.INCOMPLETO;
-            } else if (in != null && outFixed != null) {
-                long hours = Duration.between(in, outFixed).toHours();
+            } else if (inTs != null && outFixed != null) {
+                long hours = Duration.between(inTs, outFixed).toHours();
                 if (hours < MIN_SESSION_HOURS || hours > MAX_SESSION_HOURS) {
                     estado = EstadoDia.INCOMPLETO;
                 } else {
@@ -267,7 +287,7 @@ public class FichadaService {
                 estado = EstadoDia.INCOMPLETO;
             }
 
-            result.add(new DailySessionRow(day, in, outFixed, estado));
+            result.add(new DailySessionRow(day, inTs, outFixed, estado));
         }
 
         return result;
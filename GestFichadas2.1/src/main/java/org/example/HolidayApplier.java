@@ -2,6 +2,7 @@ package org.example;
 
 import java.time.*;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -74,6 +75,14 @@ public class HolidayApplier {
         if (slots == null || slots.isEmpty()) {
             return new ArrayList<>(rows);
         }
+        return stageWithSlots(slots).run(rows);
+    }
+
+    /** Paso de RowStage equivalente a applyWithSlots (sin slots deja pasar todo). */
+    public static RowStage stageWithSlots(List<HolidayPickerView.HolidaySlot> slots) {
+        if (slots == null || slots.isEmpty()) {
+            return RowStage.IDENTITY;
+        }
 
         // mapa fecha -> slot (si hubiera más de uno por fecha, se pisa el último)
         Map<LocalDate, HolidayPickerView.HolidaySlot> byDate = new HashMap<>();
@@ -81,177 +90,175 @@ public class HolidayApplier {
             byDate.put(s.date(), s);
         }
 
-        List<MainView.CalcRow> out = new ArrayList<>();
+        return (r, out) -> applyRow(r, byDate, out);
+    }
+
+    private static void applyRow(
+            MainView.CalcRow r,
+            Map<LocalDate, HolidayPickerView.HolidaySlot> byDate,
+            Consumer<MainView.CalcRow> out
+    ) {
+        LocalDate date = r.getDate();
+        HolidayPickerView.HolidaySlot slot = byDate.get(date);
 
-        for (MainView.CalcRow r : rows) {
-            LocalDate date = LocalDate.parse(r.getFecha());
-            HolidayPickerView.HolidaySlot slot = byDate.get(date);
+        // No feriado → igual que estaba
+        if (slot == null) {
+            out.accept(r);
+            return;
+        }
 
-            // No feriado → igual que estaba
-            if (slot == null) {
-                out.add(r);
-                continue;
-            }
+        String inStr  = r.getEntrada();
+        String outStr = r.getSalida();
+
+        boolean hasIn  = inStr  != null && !inStr.isBlank();
+        boolean hasOut = outStr != null && !outStr.isBlank();
 
-            String inStr  = r.getEntrada();
-            String outStr = r.getSalida();
-
-            boolean hasIn  = inStr  != null && !inStr.isBlank();
-            boolean hasOut = outStr != null && !outStr.isBlank();
-
-            boolean fullDay = isFullDaySlot(slot);
-
-            // ==========================
-            // 1) Día feriado SIN marcas
-            // ==========================
-            if (!hasIn && !hasOut) {
-
-                if (!fullDay) {
-                    // feriado parcial sin fichadas → no figura en el reporte
-                    continue;
-                }
-
-                // feriado de día completo sin fichadas → fila FERIADO con 0 min
-                String descripcion = r.getDescripcion();
-                if (descripcion == null || descripcion.isBlank()) {
-                    descripcion = "Feriado";
-                }
-
-                MainView.CalcRow nuevo = new MainView.CalcRow(
-                        r.getFecha(),
-                        r.getUsuario(),
-                        "-",      // sin turno
-                        "",       // sin entrada/salida
-                        "",
-                        0,        // tardanza
-                        0,        // extra
-                        0,        // neto
-                        descripcion,
-                        "FERIADO"
-                );
-
-                out.add(nuevo);
-                continue;
+        boolean fullDay = isFullDaySlot(slot);
+
+        // ==========================
+        // 1) Día feriado SIN marcas
+        // ==========================
+        if (!hasIn && !hasOut) {
+
+            if (!fullDay) {
+                // feriado parcial sin fichadas → no figura en el reporte
+                return;
             }
 
-            // ==========================
-            // 2) Marcas incompletas
-            // ==========================
-            if (!hasIn || !hasOut) {
-                // se deja igual; lo trabajás con ExceptionsEditor
-                out.add(r);
-                continue;
+            // feriado de día completo sin fichadas → fila FERIADO con 0 min
+            String descripcion = r.getDescripcion();
+            if (descripcion == null || descripcion.isBlank()) {
+                descripcion = "Feriado";
             }
 
-            // ==========================
-            // 3) FERIADO PARCIAL (slot con horario)
-            // ==========================
-            if (!fullDay) {
-                LocalTime inTime  = LocalTime.parse(inStr);
-                LocalTime outTime = LocalTime.parse(outStr);
-                LocalDateTime inDT  = LocalDateTime.of(date, inTime);
-                LocalDateTime outDT = LocalDateTime.of(date, outTime);
-
-                LocalDateTime slotStart = LocalDateTime.of(date, slot.from());
-                LocalDateTime slotEnd   = LocalDateTime.of(date, slot.to());
-
-                // intersección [hStart, hEnd) = tramo trabajado dentro del feriado
-                LocalDateTime hStart = inDT.isAfter(slotStart) ? inDT : slotStart;
-                LocalDateTime hEnd   = outDT.isBefore(slotEnd) ? outDT : slotEnd;
-
-                if (!hEnd.isAfter(hStart)) {
-                    // trabajó completamente fuera del rango feriado
-                    out.add(r);
-                    continue;
-                }
-
-                // ¿El tramo feriado está SOLO al principio o SOLO al final?
-                boolean holidayAtStart = hStart.equals(inDT) && hEnd.isBefore(outDT);
-                boolean holidayAtEnd   = hEnd.equals(outDT) && hStart.isAfter(inDT);
-
-                // Si el feriado está en el medio (o cubre todo), dejamos la fila original
-                if (!(holidayAtStart ^ holidayAtEnd)) {
-                    out.add(r);
-                    continue;
-                }
-
-                // ----- 3.a) Fila FERIADO (solo tramo en horario feriado) -----
-                long ferMinutesLong = Math.max(0, Duration.between(hStart, hEnd).toMinutes());
-                int ferMinutes = (int) ferMinutesLong;
-
-                String descFer = r.getDescripcion();
-                if (descFer == null || descFer.isBlank()) {
-                    descFer = "Trabajo en feriado";
-                }
-
-                MainView.CalcRow ferRow = new MainView.CalcRow(
-                        r.getFecha(),
-                        r.getUsuario(),
-                        "-",  // sin turno en feriado
-                        hStart.toLocalTime().toString(),
-                        hEnd.toLocalTime().toString(),
-                        0,           // sin tardanza
-                        ferMinutes,  // todo esto es extra
-                        ferMinutes,  // neto = extra
-                        descFer,
-                        "FERIADO"
-                );
-
-                // ----- 3.b) Fila NORMAL con el resto del día -----
-                LocalDateTime normalIn  = holidayAtStart ? hEnd  : inDT;
-                LocalDateTime normalOut = holidayAtStart ? outDT : hStart;
-
-                MainView.CalcRow normalRow = new MainView.CalcRow(
-                        r.getFecha(),
-                        r.getUsuario(),
-                        r.getTurno(), // mantiene turno A/B
-                        normalIn.toLocalTime().toString(),
-                        normalOut.toLocalTime().toString(),
-                        0,  // sin tardanza
-                        0,  // sin extra
-                        0,  // sin neto (no descuenta nada)
-                        r.getDescripcion(),
-                        "OK"
-                );
-
-                out.add(ferRow);
-                out.add(normalRow);
-                continue;
+            MainView.CalcRow nuevo = r.replaceInPass(
+                    "-",      // sin turno
+                    "",       // sin entrada/salida
+                    "",
+                    0,        // tardanza
+                    0,        // extra
+                    0,        // neto
+                    descripcion,
+                    "FERIADO"
+            );
+
+            out.accept(nuevo);
+            return;
+        }
+
+        // ==========================
+        // 2) Marcas incompletas
+        // ==========================
+        if (!hasIn || !hasOut) {
+            // se deja igual; lo trabajás con ExceptionsEditor
+            out.accept(r);
+            return;
+        }
+
+        // ==========================
+        // 3) FERIADO PARCIAL (slot con horario)
+        // ==========================
+        if (!fullDay) {
+            LocalTime inTime  = r.getEntradaTime();
+            LocalTime outTime = r.getSalidaTime();
+            LocalDateTime inDT  = LocalDateTime.of(date, inTime);
+            LocalDateTime outDT = LocalDateTime.of(date, outTime);
+
+            LocalDateTime slotStart = LocalDateTime.of(date, slot.from());
+            LocalDateTime slotEnd   = LocalDateTime.of(date, slot.to());
+
+            // intersección [hStart, hEnd) = tramo trabajado dentro del feriado
+            LocalDateTime hStart = inDT.isAfter(slotStart) ? inDT : slotStart;
+            LocalDateTime hEnd   = outDT.isBefore(slotEnd) ? outDT : slotEnd;
+
+            if (!hEnd.isAfter(hStart)) {
+                // trabajó completamente fuera del rango feriado
+                out.accept(r);
+                return;
             }
 
-            // ==========================
-            // 4) FERIADO COMPLETO CON MARCAS
-            // ==========================
-            LocalTime inTime  = LocalTime.parse(inStr);
-            LocalTime outTime = LocalTime.parse(outStr);
-            long minutes = Math.max(0, Duration.between(inTime, outTime).toMinutes());
+            // ¿El tramo feriado está SOLO al principio o SOLO al final?
+            boolean holidayAtStart = hStart.equals(inDT) && hEnd.isBefore(outDT);
+            boolean holidayAtEnd   = hEnd.equals(outDT) && hStart.isAfter(inDT);
 
-            int tardanza = 0;
-            int extra    = (int) minutes;
-            int neto     = extra;
+            // Si el feriado está en el medio (o cubre todo), dejamos la fila original
+            if (!(holidayAtStart ^ holidayAtEnd)) {
+                out.accept(r);
+                return;
+            }
 
-            String descripcion = r.getDescripcion();
-            if (descripcion == null || descripcion.isBlank()) {
-                descripcion = "Trabajo en feriado";
+            // ----- 3.a) Fila FERIADO (solo tramo en horario feriado) -----
+            long ferMinutesLong = Math.max(0, Duration.between(hStart, hEnd).toMinutes());
+            int ferMinutes = (int) ferMinutesLong;
+
+            String descFer = r.getDescripcion();
+            if (descFer == null || descFer.isBlank()) {
+                descFer = "Trabajo en feriado";
             }
 
-            MainView.CalcRow nuevo = new MainView.CalcRow(
+            MainView.CalcRow ferRow = new MainView.CalcRow(
                     r.getFecha(),
                     r.getUsuario(),
-                    "-",              // sin turno A/B en feriado completo
-                    r.getEntrada(),
-                    r.getSalida(),
-                    tardanza,
-                    extra,
-                    neto,
-                    descripcion,
+                    "-",  // sin turno en feriado
+                    hStart.toLocalTime().toString(),
+                    hEnd.toLocalTime().toString(),
+                    0,           // sin tardanza
+                    ferMinutes,  // todo esto es extra
+                    ferMinutes,  // neto = extra
+                    descFer,
                     "FERIADO"
-            );
+            ).reuseParsed(r).markCreatedInPass();
+
+            // ----- 3.b) Fila NORMAL con el resto del día -----
+            LocalDateTime normalIn  = holidayAtStart ? hEnd  : inDT;
+            LocalDateTime normalOut = holidayAtStart ? outDT : hStart;
+
+            MainView.CalcRow normalRow = new MainView.CalcRow(
+                    r.getFecha(),
+                    r.getUsuario(),
+                    r.getTurno(), // mantiene turno A/B
+                    normalIn.toLocalTime().toString(),
+                    normalOut.toLocalTime().toString(),
+                    0,  // sin tardanza
+                    0,  // sin extra
+                    0,  // sin neto (no descuenta nada)
+                    r.getDescripcion(),
+                    "OK"
+            ).reuseParsed(r).markCreatedInPass();
+
+            out.accept(ferRow);
+            out.accept(normalRow);
+            return;
+        }
+
+        // ==========================
+        // 4) FERIADO COMPLETO CON MARCAS
+        // ==========================
+        LocalTime inTime  = r.getEntradaTime();
+        LocalTime outTime = r.getSalidaTime();
+        long minutes = Math.max(0, Duration.between(inTime, outTime).toMinutes());
+
+        int tardanza = 0;
+        int extra    = (int) minutes;
+        int neto     = extra;
 
-            out.add(nuevo);
+        String descripcion = r.getDescripcion();
+        if (descripcion == null || descripcion.isBlank()) {
+            descripcion = "Trabajo en feriado";
         }
 
-        return out;
+        MainView.CalcRow nuevo = r.replaceInPass(
+                "-",              // sin turno A/B en feriado completo
+                r.getEntrada(),
+                r.getSalida(),
+                tardanza,
+                extra,
+                neto,
+                descripcion,
+                "FERIADO"
+        );
+
+        out.accept(nuevo);
     }
 
     /**
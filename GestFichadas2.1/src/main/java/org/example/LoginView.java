@@ -15,14 +15,18 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import org.example.service.ClientFactory;
 import org.example.service.IControlIdClient;
-import org.example.service.ControlIdClientExcel;
 import java.util.Objects;
+import java.util.Properties;
 
 public class LoginView {
     private final BorderPane root = new BorderPane();
 
-    public LoginView(Stage stage) {
+    /**
+     * @param config configuración del cliente (ver ClientFactory); vacía = Excel datos.xlsx
+     */
+    public LoginView(Stage stage, Properties config) {
         stage.setResizable(false);
 
         // Cargar la imagen de fondo
@@ -80,13 +84,20 @@ public class LoginView {
             new Thread(() -> {
                 System.out.println("=== LoginView ===");
                 System.out.println("Directorio de trabajo: " + System.getProperty("user.dir"));
-                
-                // Crear ruta absoluta para el archivo Excel
-                String excelPath = System.getProperty("user.dir") + "/datos.xlsx";
-                System.out.println("Ruta del Excel: " + excelPath);
-                
-                System.out.println("Creando cliente ControlIdClientExcel...");
-                IControlIdClient client = new ControlIdClientExcel(excelPath);
+
+                // Cliente según fichadas.properties / argumentos (por defecto el Excel datos.xlsx)
+                IControlIdClient client;
+                try {
+                    client = ClientFactory.create(config);
+                } catch (RuntimeException ex) {
+                    System.out.println("Configuración inválida: " + ex.getMessage());
+                    Platform.runLater(() -> {
+                        btn.setDisable(false);
+                        info.setStyle("-fx-text-fill: red;");
+                        info.setText("❌ Configuración inválida: " + ex.getMessage());
+                    });
+                    return;
+                }
                 System.out.println("Cliente creado: " + client.getClass().getSimpleName());
                 boolean ok = client.login(user.getText(), pass.getText());
                 Platform.runLater(() -> {
@@ -31,6 +31,7 @@ public class MainMenuView {
     private final LocalDate fetchFrom; // lunes anterior o igual a "from"
 
     private List<MainView.CalcRow> baseRowsAll = new ArrayList<>(); // contexto
+    private WeekShiftIndex         weekShifts  = WeekShiftIndex.of(List.of()); // mayoría semanal de baseRowsAll
     private List<MainView.CalcRow> baseRows    = new ArrayList<>(); // visible (solo from..to)
     private List<ExceptionFix>     excepciones = new ArrayList<>();
     private List<MainView.CalcRow> reporteRows = new ArrayList<>();
@@ -142,11 +143,12 @@ public class MainMenuView {
                 javafx.application.Platform.runLater(() -> {
 
                     baseRowsAll = new ArrayList<>(loadedAll);
+                    weekShifts  = WeekShiftIndex.of(baseRowsAll); // una vez por carga, lo comparten editor y pipeline
 
                     // visible: solo from..to
                     baseRows = loadedAll.stream()
                             .filter(r -> {
-                                LocalDate d = LocalDate.parse(r.getFecha());
+                                LocalDate d = r.getDate();
                                 return (!d.isBefore(from) && !d.isAfter(to));
                             })
                             .toList();
@@ -197,26 +199,27 @@ public class MainMenuView {
 
         // 3) Editor de excepciones
         ExceptionsEditorView editor =
-                new ExceptionsEditorView(owner, baseRowsAll, feriadosSeleccionados, from, to);
+                new ExceptionsEditorView(owner, baseRowsAll, weekShifts, feriadosSeleccionados, from, to);
         editor.showAndWait();
 
         if (!editor.isAccepted()) return;
 
         excepciones = editor.getResult();
 
-        // 4) Aplicar excepciones + domingo + feriados
-        List<MainView.CalcRow> tmp =
-                ExceptionApplier.apply(baseRowsAll, excepciones, feriadosSeleccionados);
-
-        tmp = SundayApplier.apply(tmp);
-        tmp = HolidayApplier.applyWithSlots(tmp, feriadosConHorario);
+        // 4) Excepciones + domingo + feriados + horas 50% / 100%, en una sola pasada.
+        //    PremiumApplier consulta HolidayApplier.isHoliday: los slots se registran antes.
         HolidayApplier.registerSlots(feriadosConHorario);
-        // 5) Calcular horas 50% / 100% usando feriados (completos y parciales)
-        PremiumApplier.apply(tmp, feriadosConHorario);
+        RowStage pipeline = RowStage.of(
+                ExceptionApplier.stage(weekShifts, excepciones, feriadosSeleccionados),
+                SundayApplier.stage(),
+                HolidayApplier.stageWithSlots(feriadosConHorario),
+                PremiumApplier.stage()
+        );
+        List<MainView.CalcRow> tmp = pipeline.run(baseRowsAll);
 
         reporteRows = tmp.stream()
                 .filter(r -> {
-                    LocalDate d = LocalDate.parse(r.getFecha());
+                    LocalDate d = r.getDate();
                     return (!d.isBefore(from) && !d.isAfter(to));
                 })
                 .toList();
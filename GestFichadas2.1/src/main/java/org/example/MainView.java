@@ -239,6 +239,99 @@ public class MainView {
             this.descripcion = (descripcion == null) ? "" : descripcion;
         }
 
+        // Valores tipados, parseados una sola vez (los appliers los piden fila por fila
+        // en cada pasada). fecha no cambia; entrada/salida se invalidan en su setter.
+        private LocalDate date;
+        private LocalTime entradaTime;
+        private LocalTime salidaTime;
+
+        /** Igual que LocalDate.parse(getFecha()), incluidas las excepciones si no parsea. */
+        public LocalDate getDate() {
+            LocalDate d = date;
+            if (d == null) date = d = LocalDate.parse(fecha);
+            return d;
+        }
+
+        /** Igual que LocalTime.parse(getEntrada()), incluidas las excepciones si no parsea. */
+        public LocalTime getEntradaTime() {
+            LocalTime t = entradaTime;
+            if (t == null) entradaTime = t = LocalTime.parse(entrada);
+            return t;
+        }
+
+        /** Igual que LocalTime.parse(getSalida()), incluidas las excepciones si no parsea. */
+        public LocalTime getSalidaTime() {
+            LocalTime t = salidaTime;
+            if (t == null) salidaTime = t = LocalTime.parse(salida);
+            return t;
+        }
+
+        /**
+         * Precarga los valores tipados cuando quien arma la fila ya los tiene
+         * (deben ser los que dan fecha/entrada/salida con toString; null = sin precargar).
+         */
+        CalcRow withParsed(LocalDate date, LocalTime entrada, LocalTime salida) {
+            this.date = date;
+            this.entradaTime = entrada;
+            this.salidaTime = salida;
+            return this;
+        }
+
+        /** Reusa lo ya parseado de src para los campos que quedaron iguales (filas derivadas). */
+        CalcRow reuseParsed(CalcRow src) {
+            if (Objects.equals(fecha, src.fecha)) date = src.date;
+            if (Objects.equals(entrada, src.entrada)) entradaTime = src.entradaTime;
+            if (Objects.equals(salida, src.salida)) salidaTime = src.salidaTime;
+            return this;
+        }
+
+        // Fila armada por un paso de RowStage en la pasada en curso: solo la ve el paso
+        // siguiente, que la puede reescribir en el lugar (ver replaceInPass y RowStage.run).
+        private boolean createdInPass;
+
+        CalcRow markCreatedInPass() {
+            createdInPass = true;
+            return this;
+        }
+
+        void endPass() {
+            createdInPass = false;
+        }
+
+        /**
+         * Fila que reemplaza a esta en un paso de RowStage: misma fecha/usuario y el resto
+         * como new CalcRow(...).reuseParsed(this), con los argumentos en el orden del constructor.
+         * Si la creó un paso anterior de la misma pasada se reescribe esta misma fila
+         * (nadie más la tiene); si no, se crea una nueva y esta queda intacta.
+         */
+        CalcRow replaceInPass(String turno, String entrada, String salida, int tardanza,
+                              int extra, int neto, String estado, String descripcion) {
+            if (!createdInPass) {
+                return new CalcRow(fecha, usuario, turno, entrada, salida, tardanza, extra, neto,
+                        estado, descripcion).reuseParsed(this).markCreatedInPass();
+            }
+            if (!Objects.equals(this.entrada, entrada)) entradaTime = null;
+            if (!Objects.equals(this.salida, salida)) salidaTime = null;
+            this.turno = turno;
+            this.entrada = entrada;
+            this.salida = salida;
+            this.tardanza = tardanza;
+            this.extra = extra;
+            this.neto = neto;
+            this.estado = estado;
+            this.descripcion = (descripcion == null) ? "" : descripcion;
+            // el resto, como recién construida
+            rawEntrada = null;
+            rawSalida = null;
+            extraStart = null;
+            extraEnd = null;
+            extra50Hours = 0;
+            extra100Hours = 0;
+            flag50 = "";
+            flag100 = "";
+            return this;
+        }
+
         // getters
         public String getFecha() { return fecha; }
         public String getUsuario() { return usuario; }
@@ -252,8 +345,8 @@ public class MainView {
         public String getDescripcion() { return descripcion; }
 
         // setters
-        public void setEntrada(String entrada) { this.entrada = entrada; }
-        public void setSalida(String salida) { this.salida = salida; }
+        public void setEntrada(String entrada) { this.entrada = entrada; this.entradaTime = null; }
+        public void setSalida(String salida) { this.salida = salida; this.salidaTime = null; }
         public void setTardanza(int tardanza) { this.tardanza = tardanza; }
         public void setExtra(int extra) { this.extra = extra; }
         public void setNeto(int neto) { this.neto = neto; }
@@ -31,122 +31,128 @@ public class PremiumApplier {
         if (rows == null || rows.isEmpty()) return;
 
         for (MainView.CalcRow r : rows) {
+            applyRow(r);
+        }
+    }
 
-            // Reset por las dudas
-            r.setExtra50Hours(0.0);
-            r.setExtra100Hours(0.0);
+    /** Paso de RowStage equivalente a apply (modifica la fila y la deja pasar). */
+    public static RowStage stage() {
+        return RowStage.peek(PremiumApplier::applyRow);
+    }
 
-            int extraMin = Math.max(0, r.getExtra());
-            if (extraMin <= 0) {
-                continue;
-            }
+    private static void applyRow(MainView.CalcRow r) {
+        // Reset por las dudas
+        r.setExtra50Hours(0.0);
+        r.setExtra100Hours(0.0);
 
-            String fechaStr  = r.getFecha();
-            String inStr     = r.getEntrada();
-            String outStr    = r.getSalida();
-            String turnoStr  = r.getTurno();
-            String estadoStr = (r.getEstado() == null) ? "" : r.getEstado().trim();
+        int extraMin = Math.max(0, r.getExtra());
+        if (extraMin <= 0) {
+            return;
+        }
 
-            if (isBlank(fechaStr) || isBlank(inStr) || isBlank(outStr)) {
-                // Sin horarios no podemos calcular bandas
-                continue;
-            }
+        String fechaStr  = r.getFecha();
+        String inStr     = r.getEntrada();
+        String outStr    = r.getSalida();
+        String turnoStr  = r.getTurno();
+        String estadoStr = (r.getEstado() == null) ? "" : r.getEstado().trim();
 
-            LocalDate date;
-            LocalTime inTime;
-            LocalTime outTime;
-            try {
-                date    = LocalDate.parse(fechaStr);
-                inTime  = LocalTime.parse(inStr);
-                outTime = LocalTime.parse(outStr);
-            } catch (Exception ex) {
-                // Si algo no parsea, no lo rompemos
-                continue;
-            }
+        if (isBlank(fechaStr) || isBlank(inStr) || isBlank(outStr)) {
+            // Sin horarios no podemos calcular bandas
+            return;
+        }
 
-            LocalDateTime inDT  = date.atTime(inTime);
-            LocalDateTime outDT = date.atTime(outTime);
+        LocalDate date;
+        LocalTime inTime;
+        LocalTime outTime;
+        try {
+            date    = r.getDate();
+            inTime  = r.getEntradaTime();
+            outTime = r.getSalidaTime();
+        } catch (Exception ex) {
+            // Si algo no parsea, no lo rompemos
+            return;
+        }
 
-            // Nunca permitimos intervalo "al revés"
-            if (!outDT.isAfter(inDT)) {
-                continue;
-            }
+        // Segundos del día (entrada y salida son del mismo día "date")
+        int inSec  = inTime.toSecondOfDay();
+        int outSec = outTime.toSecondOfDay();
 
-            DayOfWeek dow   = date.getDayOfWeek();
-            boolean isSunday  = (dow == DayOfWeek.SUNDAY);
-            boolean isHoliday = HolidayApplier.isHoliday(date);
-            System.out.println(
-                    "[DEBUG PremiumApplier FLAGS] date=" + date +
-                            " isHoliday=" + isHoliday +
-                            " isSunday=" + isSunday +
-                            " estado=" + estadoStr
-            );
-            // Determinar turno
-            ScheduleService.Shift shift = null;
-            if ("A".equalsIgnoreCase(turnoStr)) {
-                shift = ScheduleService.Shift.A;
-            } else if ("B".equalsIgnoreCase(turnoStr)) {
-                shift = ScheduleService.Shift.B;
-            }
+        // Nunca permitimos intervalo "al revés"
+        if (outSec <= inSec) {
+            return;
+        }
 
-            // Si no hay turno (por ejemplo en domingos/feriados) podemos inferir
-            if (shift == null) {
-                shift = ScheduleService.assignShift(inDT, outDT);
+        DayOfWeek dow   = date.getDayOfWeek();
+        boolean isSunday  = (dow == DayOfWeek.SUNDAY);
+        boolean isHoliday = HolidayApplier.isHoliday(date);
+        System.out.println(
+                "[DEBUG PremiumApplier FLAGS] date=" + date +
+                        " isHoliday=" + isHoliday +
+                        " isSunday=" + isSunday +
+                        " estado=" + estadoStr
+        );
+        // Determinar turno
+        ScheduleService.Shift shift = null;
+        if ("A".equalsIgnoreCase(turnoStr)) {
+            shift = ScheduleService.Shift.A;
+        } else if ("B".equalsIgnoreCase(turnoStr)) {
+            shift = ScheduleService.Shift.B;
+        }
+
+        // Si no hay turno (por ejemplo en domingos/feriados) podemos inferir
+        if (shift == null) {
+            shift = ScheduleService.assignShift(inSec, outSec, dow, null);
+        }
+
+        double h50;
+        double h100;
+
+        if (isSunday || isHoliday) {
+            // DOMINGO / FERIADO:
+            // Todo el intervalo trabajado se considera extra, y
+            // PremiumCalculator ya lo manda al 100%.
+            long res = PremiumCalculator.classify(dow, true, inSec, outSec);
+            h50  = PremiumCalculator.hours50(res);
+            h100 = PremiumCalculator.hours100(res);
+        } else {
+            // DÍA NORMAL:
+            // Solo consideramos como extra:
+            //  - lo que cae ANTES del inicio de turno
+            //  - lo que cae DESPUÉS del fin de turno
+
+            int startSec = ScheduleService.expectedStart(shift, dow).toSecondOfDay();
+            int endSec   = ScheduleService.expectedEnd(shift, dow).toSecondOfDay();
+
+            long resEarly = 0;
+            long resLate  = 0;
+
+            // Extra por llegar antes
+            if (inSec < startSec) {
+                resEarly = PremiumCalculator.classify(dow, false, inSec, startSec);
             }
 
-            double h50;
-            double h100;
-
-            if (isSunday || isHoliday) {
-                // DOMINGO / FERIADO:
-                // Todo el intervalo trabajado se considera extra, y
-                // PremiumCalculator ya lo manda al 100%.
-                PremiumCalculator.Result res =
-                        PremiumCalculator.compute(date, inDT, outDT, isHoliday, isSunday);
-                h50  = res.hours50();
-                h100 = res.hours100();
-            } else {
-                // DÍA NORMAL:
-                // Solo consideramos como extra:
-                //  - lo que cae ANTES del inicio de turno
-                //  - lo que cae DESPUÉS del fin de turno
-
-                LocalTime expectedStart = ScheduleService.expectedStart(shift, dow);
-                LocalTime expectedEnd   = ScheduleService.expectedEnd(shift, dow);
-
-                LocalDateTime startDT = date.atTime(expectedStart);
-                LocalDateTime endDT   = date.atTime(expectedEnd);
-
-                PremiumCalculator.Result resEarly = new PremiumCalculator.Result(0.0, 0.0);
-                PremiumCalculator.Result resLate  = new PremiumCalculator.Result(0.0, 0.0);
-
-                // Extra por llegar antes
-                if (inDT.isBefore(startDT)) {
-                    resEarly = PremiumCalculator.compute(date, inDT, startDT, false, false);
-                }
-
-                // Extra por irse después
-                if (outDT.isAfter(endDT)) {
-                    resLate = PremiumCalculator.compute(date, endDT, outDT, false, false);
-                }
-
-                h50  = resEarly.hours50()  + resLate.hours50();
-                h100 = resEarly.hours100() + resLate.hours100();
+            // Extra por irse después
+            if (outSec > endSec) {
+                resLate = PremiumCalculator.classify(dow, false, endSec, outSec);
             }
 
-            // Pasamos a minutos para comparar con neto
-            long premiumMinutes = Math.round((h50 + h100) * 60.0);
+            // cada tramo se redondea por separado (igual que antes)
+            h50  = PremiumCalculator.hours50(resEarly)  + PremiumCalculator.hours50(resLate);
+            h100 = PremiumCalculator.hours100(resEarly) + PremiumCalculator.hours100(resLate);
+        }
+
+        // Pasamos a minutos para comparar con neto
+        long premiumMinutes = Math.round((h50 + h100) * 60.0);
 
-            //if (premiumMinutes > 0 && premiumMinutes > netMin) {
-            //    // Si lo calculado supera el neto, lo escalamos proporcionalmente
-            //    double factor = netMin / (double) premiumMinutes;
-            //    h50  = round2(h50  * factor);
-            //    h100 = round2(h100 * factor);
-            //}
+        //if (premiumMinutes > 0 && premiumMinutes > netMin) {
+        //    // Si lo calculado supera el neto, lo escalamos proporcionalmente
+        //    double factor = netMin / (double) premiumMinutes;
+        //    h50  = round2(h50  * factor);
+        //    h100 = round2(h100 * factor);
+        //}
 
-            r.setExtra50Hours(h50);
-            r.setExtra100Hours(h100);
-        }
+        r.setExtra50Hours(h50);
+        r.setExtra100Hours(h100);
     }
 
     /* ============================
@@ -18,7 +18,8 @@ import java.util.List;
  *      07:00–13:00 → 50%
  *      13:00–24:00 → 100%
  *
- * Internamente trabaja en minutos y convierte a horas decimales.
+ * Internamente trabaja en minutos (tabla precalculada por minuto de la semana)
+ * y convierte a horas decimales.
  */
 public class PremiumCalculator {
 
@@ -34,6 +35,45 @@ public class PremiumCalculator {
     // Banda horaria dentro del día
     private record Band(LocalTime start, LocalTime end, Rate rate) {}
 
+    /* ============================
+       Tabla por minuto de la semana
+       ============================
+       Las bandas de buildBandsForDay se compilan una vez en una tabla de 7 × 1440 minutos
+       (lunes 00:00 = minuto 0). Por minuto se guarda cuántos de sus segundos caen en 50% y
+       en 100% (60 o 0; el minuto 23:59 de lunes a viernes tiene 59, porque la banda termina
+       a las 23:59:59), y prefijos acumulados en segundos. Los segundos de una tasa dentro de
+       [desde, hasta) salen de dos lecturas y una resta.
+
+       Cada día tiene a lo sumo UNA banda por tasa, así que truncar a minutos el total por tasa
+       da lo mismo que truncar banda por banda como hacía el cálculo con Duration. */
+
+    private static final int DAY_SEC = 86_400;
+    private static final int WEEK_MIN = 7 * 1440;
+
+    private static final byte[] SEC50  = new byte[WEEK_MIN];
+    private static final byte[] SEC100 = new byte[WEEK_MIN];
+    private static final int[] CUM50   = new int[WEEK_MIN + 1];
+    private static final int[] CUM100  = new int[WEEK_MIN + 1];
+
+    static {
+        for (DayOfWeek dow : DayOfWeek.values()) {
+            int base = (dow.getValue() - 1) * 1440;
+            for (Band b : buildBandsForDay(dow, false, false)) {
+                int from = b.start.toSecondOfDay();
+                int to   = b.end.equals(LocalTime.MIDNIGHT) ? DAY_SEC : b.end.toSecondOfDay();
+                byte[] sec = (b.rate == Rate.RATE_50) ? SEC50 : SEC100;
+                for (int t = from; t < to; t++) {
+                    // las bandas empiezan en minuto justo: los segundos cubiertos son [0, n) del minuto
+                    sec[base + t / 60]++;
+                }
+            }
+        }
+        for (int m = 0; m < WEEK_MIN; m++) {
+            CUM50[m + 1]  = CUM50[m]  + SEC50[m];
+            CUM100[m + 1] = CUM100[m] + SEC100[m];
+        }
+    }
+
     /**
      * Calcula horas 50% y 100% dentro del intervalo [extraStart, extraEnd),
      * según día, feriado/domingo, etc.
@@ -65,34 +105,11 @@ public class PremiumCalculator {
             return new Result(0.0, 0.0);
         }
 
-        DayOfWeek dow = date.getDayOfWeek();
-        List<Band> bands = buildBandsForDay(dow, isHoliday, isSunday);
-
-        long total50Min  = 0;
-        long total100Min = 0;
+        long minutes = classify(date.getDayOfWeek(), isHoliday || isSunday,
+                secondOfDate(date, extraStart), secondOfDate(date, extraEnd));
 
-        for (Band b : bands) {
-            LocalDateTime bandStart = date.atTime(b.start);
-            LocalDateTime bandEndDT = b.end.equals(LocalTime.MIDNIGHT)
-                    ? date.plusDays(1).atStartOfDay()   // 24:00
-                    : date.atTime(b.end);
-
-            // Intersección del intervalo de extras con la banda
-            LocalDateTime start = extraStart.isAfter(bandStart) ? extraStart : bandStart;
-            LocalDateTime end   = extraEnd.isBefore(bandEndDT) ? extraEnd : bandEndDT;
-
-            if (end.isAfter(start)) {
-                long mins = Duration.between(start, end).toMinutes();
-                if (b.rate == Rate.RATE_50) {
-                    total50Min += mins;
-                } else if (b.rate == Rate.RATE_100) {
-                    total100Min += mins;
-                }
-            }
-        }
-
-        double hours50  = minutesToRoundedHoursUp(total50Min);
-        double hours100 = minutesToRoundedHoursUp(total100Min);
+        double hours50  = hours50(minutes);
+        double hours100 = hours100(minutes);
 
         System.out.println(
                 "[DEBUG PremiumCalculator] date=" + date +
@@ -105,6 +122,58 @@ public class PremiumCalculator {
         return new Result(hours50, hours100);
     }
 
+    /**
+     * Minutos 50% y 100% de [fromSec, toSec) dentro de un día (segundos desde las 00:00, 0..86400),
+     * empaquetados en un long (leer con minutes50/minutes100 o hours50/hours100). No aloca nada.
+     *
+     * @param allDay100  domingo o feriado completo: todo al 100%
+     */
+    public static long classify(DayOfWeek dow, boolean allDay100, int fromSec, int toSec) {
+        if (toSec <= fromSec) return 0;
+        if (allDay100) {
+            return pack(0, (toSec - fromSec) / 60);
+        }
+        int base = (dow.getValue() - 1) * 1440;
+        int s50  = upTo(SEC50, CUM50, base, toSec)  - upTo(SEC50, CUM50, base, fromSec);
+        int s100 = upTo(SEC100, CUM100, base, toSec) - upTo(SEC100, CUM100, base, fromSec);
+        return pack(s50 / 60, s100 / 60);
+    }
+
+    public static long minutes50(long minutes) {
+        return minutes & 0xFFFF_FFFFL;
+    }
+
+    public static long minutes100(long minutes) {
+        return minutes >>> 32;
+    }
+
+    /** Horas 50% ya redondeadas (mismo criterio que compute). */
+    public static double hours50(long minutes) {
+        return minutesToRoundedHoursUp(minutes50(minutes));
+    }
+
+    /** Horas 100% ya redondeadas (mismo criterio que compute). */
+    public static double hours100(long minutes) {
+        return minutesToRoundedHoursUp(minutes100(minutes));
+    }
+
+    private static long pack(int min50, int min100) {
+        return (min50 & 0xFFFF_FFFFL) | ((long) min100 << 32);
+    }
+
+    /** Segundos de la tasa en [00:00 del día, sec). */
+    private static int upTo(byte[] secPerMinute, int[] cum, int base, int sec) {
+        if (sec >= DAY_SEC) return cum[base + 1440] - cum[base];
+        int m = sec / 60;
+        return cum[base + m] - cum[base] + Math.min(sec % 60, secPerMinute[base + m]);
+    }
+
+    /** Segundo de t contado desde las 00:00 de date (t ya recortado a ese día). */
+    private static int secondOfDate(LocalDate date, LocalDateTime t) {
+        if (!t.toLocalDate().equals(date)) return DAY_SEC; // solo puede ser las 24:00
+        return t.toLocalTime().toSecondOfDay();
+    }
+
     /**
      * Define las bandas horarias para el día con las reglas que vos pediste.
      */
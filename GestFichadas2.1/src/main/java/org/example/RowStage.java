@@ -0,0 +1,81 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Un paso del post-proceso de filas (excepciones, domingos, feriados, premios...).
+ *
+ * Por cada fila de entrada el paso entrega a "out" cero filas (filtra), una (map)
+ * o varias (split, ej. feriado parcial). Los pasos se encadenan con then() y run()
+ * recorre la lista UNA sola vez: cada fila atraviesa todos los pasos antes de pasar
+ * a la siguiente, sin listas intermedias.
+ *
+ * El orden del resultado es el mismo que aplicando los pasos uno detrás del otro
+ * sobre la lista completa, siempre que cada paso resuelva una fila sin mirar las demás
+ * (lo que dependa de todas las filas se precalcula al armar el paso, ver ExceptionApplier.stage).
+ *
+ * Copias: un paso que cambia una fila entrega otra nueva (las de entrada no se tocan; la
+ * excepción es peek, ej. PremiumApplier). Las filas nuevas se marcan como creadas en la
+ * pasada, y un paso posterior las reescribe en el lugar con CalcRow.replaceInPass en vez de
+ * copiarlas otra vez (ej. un fix de ExceptionApplier que cae en domingo o feriado).
+ * run() limpia la marca al terminar: las filas del resultado vuelven a ser de solo lectura
+ * para una pasada posterior.
+ */
+@FunctionalInterface
+public interface RowStage {
+
+    /** Deja pasar todas las filas sin tocarlas. */
+    RowStage IDENTITY = (row, out) -> out.accept(row);
+
+    void apply(MainView.CalcRow row, Consumer<MainView.CalcRow> out);
+
+    /** Cada fila que sale de este paso entra a next. */
+    default RowStage then(RowStage next) {
+        return (row, out) -> apply(row, r -> next.apply(r, out));
+    }
+
+    /** Una pasada sobre rows; solo se alocan la lista resultado y las filas que cambian. */
+    default List<MainView.CalcRow> run(List<MainView.CalcRow> rows) {
+        List<MainView.CalcRow> out = new ArrayList<>(rows.size());
+        Consumer<MainView.CalcRow> sink = out::add;
+        for (MainView.CalcRow row : rows) {
+            apply(row, sink);
+        }
+        for (MainView.CalcRow row : out) {
+            row.endPass();
+        }
+        return out;
+    }
+
+    /* ======================== Pasos simples ======================== */
+
+    static RowStage map(UnaryOperator<MainView.CalcRow> f) {
+        return (row, out) -> out.accept(f.apply(row));
+    }
+
+    static RowStage filter(Predicate<MainView.CalcRow> keep) {
+        return (row, out) -> {
+            if (keep.test(row)) out.accept(row);
+        };
+    }
+
+    /** Modifica la fila en el lugar (ej. PremiumApplier) y la deja pasar. */
+    static RowStage peek(Consumer<MainView.CalcRow> action) {
+        return (row, out) -> {
+            action.accept(row);
+            out.accept(row);
+        };
+    }
+
+    static RowStage of(RowStage... stages) {
+        RowStage s = IDENTITY;
+        for (RowStage next : stages) {
+            s = (s == IDENTITY) ? next : s.then(next);
+        }
+        return s;
+    }
+}
@@ -24,15 +24,23 @@ public class ScheduleService {
     public static final LocalTime B_SAT_START = LocalTime.of(8, 0);  // Sábado
     public static final LocalTime B_SAT_END   = LocalTime.of(12, 0); // Sábado
 
-    // Ventanas de decisión por hora de ENTRADA
-    private static final LocalTime IN_WINDOW_A_FROM = LocalTime.of(7, 0);
-    private static final LocalTime IN_WINDOW_A_TO   = LocalTime.of(9, 14);   // favorece A
-    private static final LocalTime IN_WINDOW_B_FROM = LocalTime.of(9, 15);
-    private static final LocalTime IN_WINDOW_B_TO   = LocalTime.of(14, 59); // favorece B
-    private static final LocalTime OUT_WINDOW_A_FROM = LocalTime.of(15, 0);
-    private static final LocalTime OUT_WINDOW_A_TO   = LocalTime.of(17, 0);   // favorece A
-    private static final LocalTime OUT_WINDOW_B_FROM = LocalTime.of(17, 0);
-    private static final LocalTime OUT_WINDOW_B_TO   = LocalTime.of(19, 0);
+    // Los mismos horarios en segundos del día (núcleo sin LocalDateTime)
+    private static final int A_START_SEC     = A_START.toSecondOfDay();
+    private static final int A_END_SEC       = A_END.toSecondOfDay();
+    private static final int B_START_SEC     = B_START.toSecondOfDay();
+    private static final int B_END_SEC       = B_END.toSecondOfDay();
+    private static final int B_SAT_START_SEC = B_SAT_START.toSecondOfDay();
+    private static final int B_SAT_END_SEC   = B_SAT_END.toSecondOfDay();
+
+    // Ventanas de decisión por hora de ENTRADA (segundo del día)
+    private static final int IN_WINDOW_A_FROM  = sec(7, 0);
+    private static final int IN_WINDOW_A_TO    = sec(9, 14);   // favorece A
+    private static final int IN_WINDOW_B_FROM  = sec(9, 15);
+    private static final int IN_WINDOW_B_TO    = sec(14, 59);  // favorece B
+    private static final int OUT_WINDOW_A_FROM = sec(15, 0);
+    private static final int OUT_WINDOW_A_TO   = sec(17, 0);   // favorece A
+    private static final int OUT_WINDOW_B_FROM = sec(17, 0);
+    private static final int OUT_WINDOW_B_TO   = sec(19, 0);
     // Regla de cómputo 10/5
     private static final int THRESHOLD_MIN = 10; // empieza a contar desde 10'
     private static final int STEP_MIN      = 5;  // redondeo en pasos de 5'
@@ -53,25 +61,28 @@ public class ScheduleService {
     public static Shift assignShift(LocalDateTime in,
                                     LocalDateTime out,
                                     Shift hintedShift) {
-        DayOfWeek dow = in.getDayOfWeek();
+        return assignShift(secondOfDay(in), secondsFromDayOf(in, out), in.getDayOfWeek(), hintedShift);
+    }
 
+    /** Núcleo de assignShift (ver "Núcleo en segundos"); dow es el día de la entrada. */
+    public static Shift assignShift(int inSec, int outSec, DayOfWeek dow, Shift hintedShift) {
         // Regla de sábado: siempre B
         if (dow == DayOfWeek.SATURDAY) {
             return Shift.B;
         }
 
         // Ventanas de decisión por hora de entrada
-        LocalTime t = in.toLocalTime();
-        if (!t.isBefore(IN_WINDOW_A_FROM) && t.isBefore(IN_WINDOW_A_TO) && !t.isBefore(OUT_WINDOW_A_FROM) && t.isBefore(OUT_WINDOW_A_TO)) {
+        int t = inSec;
+        if (t >= IN_WINDOW_A_FROM && t < IN_WINDOW_A_TO && t >= OUT_WINDOW_A_FROM && t < OUT_WINDOW_A_TO) {
             return Shift.A; // 07:00–09:14 → A casi seguro
         }
-        if (!t.isBefore(IN_WINDOW_B_FROM) && t.isBefore(IN_WINDOW_B_TO) && !t.isBefore(IN_WINDOW_B_FROM) && t.isBefore(IN_WINDOW_B_TO)) {
+        if (t >= IN_WINDOW_B_FROM && t < IN_WINDOW_B_TO && t >= IN_WINDOW_B_FROM && t < IN_WINDOW_B_TO) {
             return Shift.B; // 09:15–10:45 → B casi seguro
         }
 
         // Zona gris → comparamos "costo" de considerarlo A o B
-        long costA = cost(in, out, Shift.A, dow);
-        long costB = cost(in, out, Shift.B, dow);
+        long costA = cost(inSec, outSec, Shift.A, dow);
+        long costB = cost(inSec, outSec, Shift.B, dow);
 
         if (costA == costB && hintedShift != null) {
             // Empate → usamos el turno sugerido (mayoritario de la semana)
@@ -112,18 +123,7 @@ public class ScheduleService {
 
     /** Minutos de tardanza (solo llegada tarde). */
     public static long tardinessRounded(LocalDateTime in, Shift s, DayOfWeek dow) {
-        LocalTime startExpected =
-                (dow == DayOfWeek.SATURDAY)
-                        ? B_SAT_START   // 08:00 fijo
-                        : expectedStart(s, dow);
-
-        LocalDateTime expectedStart =
-                LocalDateTime.of(in.toLocalDate(), startExpected);
-
-        long minutesLate =
-                Math.max(0, Duration.between(expectedStart, in).toMinutes());
-
-        return roundAttendance(minutesLate);
+        return tardinessRounded(secondOfDay(in), s, dow);
     }
 
     /**
@@ -134,23 +134,60 @@ public class ScheduleService {
                                        LocalDateTime out,
                                        Shift s,
                                        DayOfWeek dow) {
+        return overtimeRounded(secondOfDay(in), secondsFromDayOf(in, out), s, dow);
+    }
 
-        // Extra por llegar antes
-        LocalTime startExpected =
-                (dow == DayOfWeek.SATURDAY)
-                        ? B_SAT_START
-                        : expectedStart(s, dow);
+    /** Minutos de salida anticipada. */
+    public static long earlyLeaveRounded(LocalDateTime in,
+                                         LocalDateTime out,
+                                         Shift s,
+                                         DayOfWeek dow) {
+        if (in == null || out == null || s == null) return 0;
+        return earlyLeaveRounded(secondOfDay(in), secondsFromDayOf(in, out), s, dow);
+    }
 
-        LocalDateTime expectedStart = LocalDateTime.of(in.toLocalDate(), expectedStart(s, dow));
-        long earlyAtStart = Math.max(0, Duration.between(in, expectedStart).toMinutes());
+    /**
+     * Tardanza, extra y salida anticipada de una jornada en una sola llamada,
+     * empaquetadas en un long (leer con tardiness/overtime/earlyLeave).
+     */
+    public static long attendance(LocalDateTime in, LocalDateTime out, Shift s, DayOfWeek dow) {
+        return attendance(secondOfDay(in), secondsFromDayOf(in, out), s, dow);
+    }
 
-        // Extra por irse después
-        LocalTime endExpected =
+    /* ============================
+       Núcleo en segundos
+       ============================
+       Las mismas reglas sin LocalDateTime/Duration (no aloca nada):
+        - inSec:  segundo del día de la entrada (0..86399).
+        - outSec: segundos desde las 00:00 del día de la ENTRADA hasta la salida
+                  (>= 86400 si sale al día siguiente).
+       Los minutos se truncan hacia cero igual que Duration.toMinutes(). Las fichadas
+       tienen precisión de segundos, así que el resultado es el mismo que antes. */
+
+    private static final int DAY_SEC = 86_400;
+
+    // Empaquetado de attendance: 21 bits por valor (sobra para minutos de una jornada)
+    private static final int PACK_BITS = 21;
+    private static final long PACK_MASK = (1L << PACK_BITS) - 1;
+
+    public static long tardinessRounded(int inSec, Shift s, DayOfWeek dow) {
+        int startExpected =
                 (dow == DayOfWeek.SATURDAY)
-                        ? B_SAT_END
-                        : expectedEnd(s, dow);
-        LocalDateTime expectedEnd = LocalDateTime.of(out.toLocalDate(), expectedEnd(s, dow));
-        long lateAtEnd = Math.max(0, Duration.between(expectedEnd, out).toMinutes());
+                        ? B_SAT_START_SEC   // 08:00 fijo
+                        : expectedStartSec(s, dow);
+
+        long minutesLate = Math.max(0, minutes(inSec - startExpected));
+
+        return roundAttendance(minutesLate);
+    }
+
+    public static long overtimeRounded(int inSec, int outSec, Shift s, DayOfWeek dow) {
+        // Extra por llegar antes
+        long earlyAtStart = Math.max(0, minutes(expectedStartSec(s, dow) - inSec));
+
+        // Extra por irse después (fin esperado del día de la SALIDA)
+        int expectedEnd = dayStartOf(outSec) + expectedEndSec(s, dow);
+        long lateAtEnd = Math.max(0, minutes(outSec - expectedEnd));
 
         long validEarly = (earlyAtStart >= 20) ? earlyAtStart : 0;
         long validLate  = (lateAtEnd  >= 20) ? lateAtEnd  : 0;
@@ -158,9 +195,63 @@ public class ScheduleService {
         long totalExtra = validEarly + validLate;
 
         return roundAttendance(totalExtra);
+    }
+
+    public static long earlyLeaveRounded(int inSec, int outSec, Shift s, DayOfWeek dow) {
+        if (s == null) return 0;
+
+        int endExpected =
+                (dow == DayOfWeek.SATURDAY)
+                        ? B_SAT_END_SEC     // 12:00 fijo
+                        : expectedEndSec(s, dow);
+
+        // si se va en horario o después, no hay salida anticipada
+        if (outSec >= endExpected) {
+            return 0;
+        }
 
+        long workedMinutes   = minutes(outSec - inSec);
+        long requiredMinutes = minutes(endExpected - inSec);
+
+        long missing = requiredMinutes - workedMinutes;
+        if (missing <= 0) return 0;
+
+        return roundAttendance(missing);
     }
 
+    /** { tardanza, extra, salida anticipada } empaquetados; ver tardiness/overtime/earlyLeave. */
+    public static long attendance(int inSec, int outSec, Shift s, DayOfWeek dow) {
+        return tardinessRounded(inSec, s, dow)
+                | overtimeRounded(inSec, outSec, s, dow) << PACK_BITS
+                | earlyLeaveRounded(inSec, outSec, s, dow) << (2 * PACK_BITS);
+    }
+
+    public static long tardiness(long attendance) {
+        return attendance & PACK_MASK;
+    }
+
+    public static long overtime(long attendance) {
+        return (attendance >>> PACK_BITS) & PACK_MASK;
+    }
+
+    public static long earlyLeave(long attendance) {
+        return (attendance >>> (2 * PACK_BITS)) & PACK_MASK;
+    }
+
+    public static int secondOfDay(LocalDateTime t) {
+        return t.getHour() * 3600 + t.getMinute() * 60 + t.getSecond();
+    }
+
+    /** Segundos desde las 00:00 del día de "day" hasta t. */
+    public static int secondsFromDayOf(LocalDateTime day, LocalDateTime t) {
+        long days = t.toLocalDate().toEpochDay() - day.toLocalDate().toEpochDay();
+        return Math.toIntExact(days * DAY_SEC + secondOfDay(t));
+    }
+
+    /* ============================
+       Helpers internos
+       ============================ */
+
     private static long roundAttendance(long minutes) {
         if (minutes < 20) return 0;
 
@@ -176,37 +267,30 @@ public class ScheduleService {
             return (hours + 1) * 60;
         }
     }
-    /** Minutos de salida anticipada. */
-    public static long earlyLeaveRounded(LocalDateTime in,
-                                         LocalDateTime out,
-                                         Shift s,
-                                         DayOfWeek dow) {
-        if (in == null || out == null || s == null) return 0;
-
-        LocalTime endExpected =
-                (dow == DayOfWeek.SATURDAY)
-                        ? B_SAT_END     // 12:00 fijo
-                        : expectedEnd(s, dow);
-
-        LocalDateTime endDT = LocalDateTime.of(in.toLocalDate(), endExpected);
 
-        // si se va en horario o después, no hay salida anticipada
-        if (!out.isBefore(endDT)) {
-            return 0;
-        }
+    /** Minutos enteros de un intervalo en segundos, truncando hacia cero (como Duration.toMinutes). */
+    private static long minutes(int seconds) {
+        return seconds / 60;
+    }
 
-        long workedMinutes   = Duration.between(in, out).toMinutes();
-        long requiredMinutes = Duration.between(in, endDT).toMinutes();
+    /** 00:00 del día en que cae sec (relativo al día de la entrada). */
+    private static int dayStartOf(int sec) {
+        return Math.floorDiv(sec, DAY_SEC) * DAY_SEC;
+    }
 
-        long missing = requiredMinutes - workedMinutes;
-        if (missing <= 0) return 0;
+    private static int sec(int hour, int minute) {
+        return hour * 3600 + minute * 60;
+    }
 
-        return roundAttendance(missing);
+    private static int expectedStartSec(Shift s, DayOfWeek dow) {
+        if (s == Shift.A) return A_START_SEC;
+        return (dow == DayOfWeek.SATURDAY) ? B_SAT_START_SEC : B_START_SEC;
     }
 
-    /* ============================
-       Helpers internos
-       ============================ */
+    private static int expectedEndSec(Shift s, DayOfWeek dow) {
+        if (s == Shift.A) return A_END_SEC;
+        return (dow == DayOfWeek.SATURDAY) ? B_SAT_END_SEC : B_END_SEC;
+    }
 
     // Redondeo hacia arriba con umbral y granularidad (paso) en minutos.
     private static long roundUpWithThreshold(long minutes, int threshold, int step) {
@@ -215,21 +299,16 @@ public class ScheduleService {
         return (r == 0) ? minutes : (minutes + (step - r));
     }
 
-    private static long cost(LocalDateTime in,
-                             LocalDateTime out,
-                             Shift s,
-                             DayOfWeek dow) {
-
-        LocalDateTime startExp = LocalDateTime.of(in.toLocalDate(), expectedStart(s, dow));
-        long delta = Duration.between(startExp, in).toMinutes(); // + = tarde, - = temprano
+    private static long cost(int inSec, int outSec, Shift s, DayOfWeek dow) {
+        long delta = minutes(inSec - expectedStartSec(s, dow)); // + = tarde, - = temprano
 
         long penaltyLate  = Math.max(0, delta);        // 1:1 para tardanza
         long penaltyEarly = Math.max(0, -delta) / 3;   // llegar MUY temprano también penaliza pero menos
 
         long penaltyEnd = 0;
         if (dow == DayOfWeek.SATURDAY && s == Shift.B) {
-            LocalDateTime endExp = LocalDateTime.of(out.toLocalDate(), expectedEnd(s, dow));
-            long drift = Math.abs(Duration.between(endExp, out).toMinutes());
+            int endExp = dayStartOf(outSec) + expectedEndSec(s, dow);
+            long drift = Math.abs(minutes(outSec - endExp));
             penaltyEnd = drift / 2; // castigo suave si se aleja mucho de las 12:00
         }
 
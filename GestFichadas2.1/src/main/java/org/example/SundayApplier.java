@@ -4,6 +4,7 @@ import java.time.*;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Ajusta las filas que caen en DOMINGO:
@@ -24,66 +25,67 @@ public class SundayApplier {
             return Collections.emptyList();
         }
 
-        List<MainView.CalcRow> out = new ArrayList<>();
-
-        for (MainView.CalcRow r : rows) {
-            LocalDate date = LocalDate.parse(r.getFecha());
-            DayOfWeek dow  = date.getDayOfWeek();
-
-            // Solo tratamos domingos
-            if (dow != DayOfWeek.SUNDAY) {
-                out.add(r);
-                continue;
-            }
-
-            String inStr  = r.getEntrada();
-            String outStr = r.getSalida();
-
-            boolean hasIn  = inStr  != null && !inStr.isBlank();
-            boolean hasOut = outStr != null && !outStr.isBlank();
-
-            // 1) Domingo sin ninguna marca -> NO se muestra en el reporte
-            if (!hasIn && !hasOut) {
-                // Domingo normal, no trabajó, no se lista
-                continue;
-            }
-
-            // 2) Domingo con fichadas incompletas -> se deja igual
-            if (!hasIn || !hasOut) {
-                out.add(r);
-                continue;
-            }
-
-            // 3) Domingo con fichadas completas -> todas las horas son extra
-            LocalTime inTime  = LocalTime.parse(inStr);
-            LocalTime outTime = LocalTime.parse(outStr);
-            long minutes = Math.max(0, Duration.between(inTime, outTime).toMinutes());
-
-            int tardanza = 0;
-            int extra    = (int) minutes;
-            int neto     = extra;
-
-            String descripcion = r.getDescripcion();
-            if (descripcion == null || descripcion.isBlank()) {
-                descripcion = "Trabajo en domingo";
-            }
-
-            MainView.CalcRow nuevo = new MainView.CalcRow(
-                    r.getFecha(),
-                    r.getUsuario(),
-                    "-",              // sin turno A/B
-                    r.getEntrada(),
-                    r.getSalida(),
-                    tardanza,
-                    extra,
-                    neto,
-                    descripcion,
-                    "DOMINGO"
-            );
-
-            out.add(nuevo);
+        return stage().run(rows);
+    }
+
+    /** Paso de RowStage equivalente a apply (cada fila se resuelve sola). */
+    public static RowStage stage() {
+        return SundayApplier::applyRow;
+    }
+
+    private static void applyRow(MainView.CalcRow r, Consumer<MainView.CalcRow> out) {
+        LocalDate date = r.getDate();
+        DayOfWeek dow  = date.getDayOfWeek();
+
+        // Solo tratamos domingos
+        if (dow != DayOfWeek.SUNDAY) {
+            out.accept(r);
+            return;
+        }
+
+        String inStr  = r.getEntrada();
+        String outStr = r.getSalida();
+
+        boolean hasIn  = inStr  != null && !inStr.isBlank();
+        boolean hasOut = outStr != null && !outStr.isBlank();
+
+        // 1) Domingo sin ninguna marca -> NO se muestra en el reporte
+        if (!hasIn && !hasOut) {
+            // Domingo normal, no trabajó, no se lista
+            return;
+        }
+
+        // 2) Domingo con fichadas incompletas -> se deja igual
+        if (!hasIn || !hasOut) {
+            out.accept(r);
+            return;
+        }
+
+        // 3) Domingo con fichadas completas -> todas las horas son extra
+        LocalTime inTime  = r.getEntradaTime();
+        LocalTime outTime = r.getSalidaTime();
+        long minutes = Math.max(0, Duration.between(inTime, outTime).toMinutes());
+
+        int tardanza = 0;
+        int extra    = (int) minutes;
+        int neto     = extra;
+
+        String descripcion = r.getDescripcion();
+        if (descripcion == null || descripcion.isBlank()) {
+            descripcion = "Trabajo en domingo";
         }
 
-        return out;
+        MainView.CalcRow nuevo = r.replaceInPass(
+                "-",              // sin turno A/B
+                r.getEntrada(),
+                r.getSalida(),
+                tardanza,
+                extra,
+                neto,
+                descripcion,
+                "DOMINGO"
+        );
+
+        out.accept(nuevo);
     }
 }
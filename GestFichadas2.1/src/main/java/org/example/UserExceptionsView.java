@@ -17,7 +17,6 @@ import javafx.stage.Stage;
 
 import java.time.*;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 import java.util.stream.Collectors;
 import javafx.beans.property.BooleanProperty;
@@ -47,7 +46,7 @@ public class UserExceptionsView {
     private final LocalDate visibleTo;
     private final List<MainView.CalcRow> baseRows;
     private final Set<LocalDate> holidays;
-    private final Map<String, ScheduleService.Shift> majorityByUserWeek = new HashMap<>();
+    private final WeekShiftIndex weekShifts; // turno mayoritario por usuario y semana
     private final ComboBox<String> cmbUser = new ComboBox<>();
     private final Button btnVerLaborales   = new Button("Ver días laborales sin marcas");
     private final Button btnVerDomFer      = new Button("Ver domingos/feriados sin marcas");
@@ -74,7 +73,18 @@ public class UserExceptionsView {
                               Set<LocalDate> holidays,
                               LocalDate visibleFrom,
                               LocalDate visibleTo) {
+        this(owner, baseRows, WeekShiftIndex.of(baseRows), holidays, visibleFrom, visibleTo);
+    }
+
+    /** @param weekShifts mayoría semanal ya indexada (la que arma ExceptionsEditorView / la carga) */
+    public UserExceptionsView(Stage owner,
+                              List<MainView.CalcRow> baseRows,
+                              WeekShiftIndex weekShifts,
+                              Set<LocalDate> holidays,
+                              LocalDate visibleFrom,
+                              LocalDate visibleTo) {
         this.baseRows = new ArrayList<>(baseRows);
+        this.weekShifts = weekShifts;
         this.holidays = (holidays == null) ? Set.of() : holidays;
         this.visibleFrom = visibleFrom;
         this.visibleTo = visibleTo;
@@ -251,7 +261,7 @@ public class UserExceptionsView {
         LocalDate minDate = null, maxDate = null;
 
         for (MainView.CalcRow r : userRows) {
-            LocalDate d = LocalDate.parse(r.getFecha());
+            LocalDate d = r.getDate();
             byDate.put(d, r);
             if (minDate == null || d.isBefore(minDate)) minDate = d;
             if (maxDate == null || d.isAfter(maxDate)) maxDate = d;
@@ -261,11 +271,8 @@ public class UserExceptionsView {
 
         if (startRange.isBefore(visibleFrom)) startRange = visibleFrom;
         if (endRange.isAfter(visibleTo)) endRange = visibleTo;
-        // 🔹 Mayoría de turno por semana PARA ESE USUARIO
-        Map<LocalDate, ScheduleService.Shift> majorityPerWeek = computeMajorityPerWeek(userRows);
-
         // 🔹 Turno esperado por fecha (ya lo usamos después para precargar horarios)
-        Map<LocalDate, String> turnoPorFecha = buildExpectedTurns(userRows);
+        Map<LocalDate, String> turnoPorFecha = buildExpectedTurns(user, userRows);
 
         // Detectar días laborales SIN_MARCAS (no domingo, no feriado, y sábado sólo si mayoritario = B)
         List<LocalDate> laboralSinMarca = new ArrayList<>();
@@ -297,8 +304,7 @@ public class UserExceptionsView {
             // Si el mayoritario es B → mostrar siempre. Si es A → mostrar sólo si tiene alguna fichada.
             // Si no tenemos mayoría → mostrar si hay marcas.
             if (isSaturday) {
-                LocalDate weekId = d.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-                ScheduleService.Shift maj = majorityPerWeek.get(weekId);
+                ScheduleService.Shift maj = weekShifts.majority(user, d);
 
                 boolean hasIn  = r.getEntrada() != null && !r.getEntrada().isBlank();
                 boolean hasOut = r.getSalida()  != null && !r.getSalida().isBlank();
@@ -425,7 +431,7 @@ public class UserExceptionsView {
         // Mapa rápido fecha -> fila de ese usuario (si existe)
         Map<LocalDate, MainView.CalcRow> byDate = userRows.stream()
                 .collect(Collectors.toMap(
-                        r -> LocalDate.parse(r.getFecha()),
+                        r -> r.getDate(),
                         r -> r,
                         (a, b) -> a
                 ));
@@ -567,7 +573,7 @@ public class UserExceptionsView {
        Helpers de turno esperado
        ========================= */
 
-    private Map<LocalDate, String> buildExpectedTurns(List<MainView.CalcRow> userRows) {
+    private Map<LocalDate, String> buildExpectedTurns(String user, List<MainView.CalcRow> userRows) {
         Map<LocalDate, String> turnoPorFecha = new HashMap<>();
 
         List<MainView.CalcRow> sorted = userRows.stream()
@@ -577,16 +583,14 @@ public class UserExceptionsView {
         for (MainView.CalcRow r : sorted) {
             String t = r.getTurno();
             if (t != null && !t.isBlank()) {
-                turnoPorFecha.put(LocalDate.parse(r.getFecha()), t.toUpperCase(Locale.ROOT));
+                turnoPorFecha.put(r.getDate(), t.toUpperCase(Locale.ROOT));
             }
         }
 
         Set<LocalDate> allDates = sorted.stream()
-                .map(r -> LocalDate.parse(r.getFecha()))
+                .map(r -> r.getDate())
                 .collect(Collectors.toCollection(TreeSet::new));
 
-        Map<LocalDate, ScheduleService.Shift> majorityPerWeek = computeMajorityPerWeek(sorted);
-
         for (LocalDate d : allDates) {
             if (turnoPorFecha.containsKey(d)) continue;
 
@@ -611,8 +615,7 @@ public class UserExceptionsView {
                     turno = prevTurno;
                 }
             } else {
-                LocalDate weekId = d.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-                ScheduleService.Shift maj = majorityPerWeek.get(weekId);
+                ScheduleService.Shift maj = weekShifts.majority(user, d);
                 if (maj != null) {
                     turno = (maj == ScheduleService.Shift.A) ? "A" : "B";
                 } else {
@@ -627,28 +630,6 @@ public class UserExceptionsView {
         return turnoPorFecha;
     }
 
-    private Map<LocalDate, ScheduleService.Shift> computeMajorityPerWeek(List<MainView.CalcRow> rows) {
-        Map<LocalDate, int[]> counts = new HashMap<>();
-
-        for (MainView.CalcRow r : rows) {
-            String t = r.getTurno();
-            if (t == null || t.isBlank()) continue;
-
-            LocalDate d = LocalDate.parse(r.getFecha());
-            LocalDate weekId = d.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-            int[] c = counts.computeIfAbsent(weekId, k -> new int[2]);
-            if ("A".equalsIgnoreCase(t)) c[0]++; else if ("B".equalsIgnoreCase(t)) c[1]++;
-        }
-
-        Map<LocalDate, ScheduleService.Shift> maj = new HashMap<>();
-        for (var e : counts.entrySet()) {
-            int[] c = e.getValue();
-            if (c[0] == 0 && c[1] == 0) continue;
-            maj.put(e.getKey(), (c[0] >= c[1]) ? ScheduleService.Shift.A : ScheduleService.Shift.B);
-        }
-        return maj;
-    }
-
     /* =========================
        Helpers varios
        ========================= */
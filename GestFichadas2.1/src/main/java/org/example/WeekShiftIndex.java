@@ -0,0 +1,134 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turno mayoritario (A/B) por usuario y semana ISO (lunes a domingo).
+ *
+ * Conteos en arrays por usuario denso (0..n-1) y semana relativa a la primera del rango:
+ * armar el índice es una pasada y cada consulta son dos lecturas. Regla de siempre:
+ * gana A en empate y una semana sin ningún A/B no tiene mayoría (null).
+ *
+ * Dos formas de uso:
+ *  - of(rows): sobre el turno de las CalcRow, por nombre de usuario. Se arma una vez por carga
+ *    (MainMenuView) y lo comparten ExceptionApplier, ExceptionsEditorView y UserExceptionsView.
+ *  - new WeekShiftIndex(users, from, to) + add(): usuarios por índice (ej. los de un FichadaBatch),
+ *    como el conteo de turnos crudos de CalcRowService.
+ */
+public final class WeekShiftIndex {
+
+    private final Map<String, Integer> userIndex; // null en el índice por usuario denso
+    private final long firstWeek;
+    private final int weeks;
+    private final int[][] counts; // [usuario][semana * 2 + (0 = A, 1 = B)], se crea al primer add
+
+    /** Índice vacío para users usuarios densos y las semanas de from..to. */
+    public WeekShiftIndex(int users, LocalDate from, LocalDate to) {
+        this(null, users, weekOf(from), weekOf(to));
+    }
+
+    private WeekShiftIndex(Map<String, Integer> userIndex, int users, long firstWeek, long lastWeek) {
+        this.userIndex = userIndex;
+        this.firstWeek = firstWeek;
+        this.weeks = (int) Math.max(0, lastWeek - firstWeek + 1);
+        this.counts = new int[users][];
+    }
+
+    /** Cuenta el turno de cada fila (las que no tienen fecha o turno no cuentan). */
+    public static WeekShiftIndex of(List<MainView.CalcRow> rows) {
+        Map<String, Integer> users = new HashMap<>();
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (MainView.CalcRow r : rows) {
+            if (!counts(r)) continue;
+            users.putIfAbsent(r.getUsuario(), users.size());
+            long w = weekOf(r.getDate());
+            min = Math.min(min, w);
+            max = Math.max(max, w);
+        }
+        if (users.isEmpty()) {
+            min = 0;
+            max = -1;
+        }
+
+        WeekShiftIndex idx = new WeekShiftIndex(users, users.size(), min, max);
+        for (MainView.CalcRow r : rows) {
+            if (!counts(r)) continue;
+            idx.add(users.get(r.getUsuario()), r.getDate(), parse(r.getTurno()), 1);
+        }
+        return idx;
+    }
+
+    private static boolean counts(MainView.CalcRow r) {
+        if (r == null) return false;
+        String fecha = r.getFecha();
+        String turno = r.getTurno();
+        return fecha != null && !fecha.isBlank() && turno != null && !turno.isBlank();
+    }
+
+    /* ======================== Conteo ======================== */
+
+    public void add(int user, LocalDate day, ScheduleService.Shift s) {
+        add(user, day, s, 1);
+    }
+
+    /**
+     * Un turno de usuario/día pasó de oldTurno a newTurno ("A", "B" o cualquier otro valor = no cuenta):
+     * se mueve el conteo sin rearmar el índice.
+     */
+    public void update(String usuario, LocalDate day, String oldTurno, String newTurno) {
+        Integer u = (userIndex == null) ? null : userIndex.get(usuario);
+        if (u == null) return;
+        add(u, day, parse(oldTurno), -1);
+        add(u, day, parse(newTurno), 1);
+    }
+
+    private void add(int user, LocalDate day, ScheduleService.Shift s, int delta) {
+        if (s == null) return;
+        int w = week(day);
+        if (w < 0) return;
+        int[] c = counts[user];
+        if (c == null) counts[user] = c = new int[weeks * 2];
+        c[w * 2 + (s == ScheduleService.Shift.A ? 0 : 1)] += delta;
+    }
+
+    /* ======================== Consulta ======================== */
+
+    /** Turno mayoritario de la semana de day para el usuario denso user (null si no hay). */
+    public ScheduleService.Shift majority(int user, LocalDate day) {
+        int w = week(day);
+        if (w < 0 || user < 0 || user >= counts.length) return null;
+        int[] c = counts[user];
+        if (c == null) return null;
+        int a = c[w * 2], b = c[w * 2 + 1];
+        if (a == 0 && b == 0) return null;
+        return (a >= b) ? ScheduleService.Shift.A : ScheduleService.Shift.B;
+    }
+
+    /** Igual, por nombre de usuario (índice armado con of). */
+    public ScheduleService.Shift majority(String usuario, LocalDate day) {
+        Integer u = (userIndex == null) ? null : userIndex.get(usuario);
+        return (u == null) ? null : majority(u, day);
+    }
+
+    /* ======================== Semanas ======================== */
+
+    /** Semana relativa al rango, -1 si day queda afuera. */
+    private int week(LocalDate day) {
+        long w = weekOf(day) - firstWeek;
+        return (w < 0 || w >= weeks) ? -1 : (int) w;
+    }
+
+    /** Número de semana con inicio en lunes (1970-01-05, lunes, es la semana 1). */
+    private static long weekOf(LocalDate day) {
+        return Math.floorDiv(day.toEpochDay() + 3, 7);
+    }
+
+    private static ScheduleService.Shift parse(String turno) {
+        if ("A".equalsIgnoreCase(turno)) return ScheduleService.Shift.A;
+        if ("B".equalsIgnoreCase(turno)) return ScheduleService.Shift.B;
+        return null;
+    }
+}
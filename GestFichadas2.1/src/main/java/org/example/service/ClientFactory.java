@@ -0,0 +1,191 @@
+package org.example.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Arma el IControlIdClient a partir de configuración, sin recompilar:
+ * - Archivo "fichadas.properties" en el directorio de trabajo (u otro con config=ruta).
+ * - Argumentos de línea de comandos "--clave=valor", que pisan al archivo.
+ * - Sin configuración queda como siempre: ControlIdClientExcel sobre datos.xlsx.
+ *
+ * Claves:
+ *   source               excel | csv | files | http         (default excel)
+ *   excel.path           ruta del Excel                     (default datos.xlsx)
+ *   excel.legacyDom      true = lectura DOM completa de POI (default false)
+ *   csv.fichadas         CSV de fichadas                    (default fichadas.csv)
+ *   csv.usuarios         CSV de usuarios                    (default usuarios.csv)
+ *   files.glob           carpeta o patrón de Excel          (default *.xlsx del directorio de trabajo;
+ *                        los que no son fichadas crudas, ej. reportes fichadas_*.xlsx, se saltean)
+ *   http.url             URL del lector; varias separadas por coma = MultiReaderClient
+ *   http.legacyTransport true = HttpURLConnection + Connection: close
+ *
+ * Decoradores (de adentro hacia afuera):
+ *   store.dir            carpeta de PunchStoreClient (vacío = apagado; meses cerrados offline;
+ *                        con varios lectores se usa una subcarpeta por lector: carpeta/0, carpeta/1...)
+ *   incremental.file     cache en disco de IncrementalSyncClient (vacío = apagado;
+ *                        con varios lectores se usa un archivo por lector: archivo.0, archivo.1...)
+ *   coalesce             true = CoalescingClient
+ *   users.cacheSeconds   TTL de UsersCacheClient (0 = apagado)
+ *   metrics              true = MetricsClient (por fuera de todo)
+ *
+ * Cálculo (lo lee App, no el cliente):
+ *   calc.parallelism     hilos de CalcRowService.loadRows (0 = uno por núcleo, 1 = secuencial)
+ */
+public final class ClientFactory {
+
+    public static final String CONFIG_FILE = "fichadas.properties";
+
+    private ClientFactory() {}
+
+    /* ======================== Configuración ======================== */
+
+    /**
+     * Archivo de configuración + argumentos. El archivo es opcional; si no se puede leer
+     * se avisa y se sigue con los argumentos / defaults.
+     * @param args argumentos con nombre ("--clave=valor" ya separados en clave → valor)
+     */
+    public static Properties loadConfig(Map<String, String> args) {
+        Properties p = new Properties();
+        Path file = Path.of(args.getOrDefault("config", workDir().resolve(CONFIG_FILE).toString()));
+
+        if (Files.isRegularFile(file)) {
+            try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                p.load(r);
+                System.out.println("[config] leído " + file.toAbsolutePath());
+            } catch (IOException e) {
+                System.out.println("[config] WARNING no se pudo leer " + file + ": " + e.getMessage());
+            }
+        }
+        p.putAll(args);
+        return p;
+    }
+
+    /**
+     * calc.parallelism para CalcRowService. Se lee antes de mostrar ninguna ventana: un valor
+     * que no es número se avisa y queda en 0 (uno por núcleo) en vez de cortar el arranque.
+     */
+    public static int calcParallelism(Properties p) {
+        String v = p.getProperty("calc.parallelism", "0").trim();
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            System.out.println("[config] WARNING calc.parallelism inválido: \"" + v + "\", se usa 0 (uno por núcleo)");
+            return 0;
+        }
+    }
+
+    /* ======================== Cliente ======================== */
+
+    public static IControlIdClient create(Properties p) {
+        String source = p.getProperty("source", "excel").trim().toLowerCase();
+        String incremental = p.getProperty("incremental.file", "").trim();
+
+        String storeDir = p.getProperty("store.dir", "").trim();
+
+        IControlIdClient client = switch (source) {
+            case "excel" -> new ControlIdClientExcel(
+                    path(p, "excel.path", "datos.xlsx"), bool(p, "excel.legacyDom"));
+            case "csv" -> new ControlIdClientCsv(
+                    path(p, "csv.fichadas", "fichadas.csv"), path(p, "csv.usuarios", "usuarios.csv"));
+            case "files" -> MultiFileExcelClient.of(path(p, "files.glob", "*.xlsx"));
+            case "http" -> http(p, incremental, storeDir);
+            default -> throw new IllegalArgumentException("source desconocido: " + source
+                    + " (excel | csv | files | http)");
+        };
+
+        // http con almacén/incremental ya quedó envuelto por lector
+        if (!storeDir.isEmpty() && !source.equals("http")) {
+            client = store(client, storeDir);
+        }
+        if (!incremental.isEmpty() && !source.equals("http")) {
+            client = new IncrementalSyncClient(client, Path.of(incremental));
+        }
+        if (bool(p, "coalesce")) {
+            client = new CoalescingClient(client);
+        }
+        long ttl = Long.parseLong(p.getProperty("users.cacheSeconds", "0").trim());
+        if (ttl > 0) {
+            client = new UsersCacheClient(client, Duration.ofSeconds(ttl));
+        }
+        if (bool(p, "metrics")) {
+            client = new MetricsClient(client);
+        }
+
+        System.out.println("[config] cliente: " + describe(p, source, incremental, ttl));
+        return client;
+    }
+
+    /**
+     * Uno o varios lectores HTTP. La sincronización incremental y el almacén van por lector:
+     * los ids de fichada son propios de cada uno, y un mes solo se marca completo en el almacén
+     * del lector que lo entregó entero.
+     */
+    private static IControlIdClient http(Properties p, String incremental, String storeDir) {
+        String urls = p.getProperty("http.url", "").trim();
+        if (urls.isEmpty()) throw new IllegalArgumentException("source=http necesita http.url");
+
+        boolean legacy = bool(p, "http.legacyTransport");
+        List<IControlIdClient> readers = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) continue;
+            readers.add(new ControlIdClient(url.trim(), legacy));
+        }
+        // mismo orden que las otras fuentes: almacén adentro, incremental afuera
+        if (!storeDir.isEmpty()) {
+            for (int i = 0; i < readers.size(); i++) {
+                String dir = readers.size() == 1 ? storeDir : Path.of(storeDir, String.valueOf(i)).toString();
+                readers.set(i, store(readers.get(i), dir));
+            }
+        }
+        if (!incremental.isEmpty()) {
+            for (int i = 0; i < readers.size(); i++) {
+                String file = readers.size() == 1 ? incremental : incremental + "." + i;
+                readers.set(i, new IncrementalSyncClient(readers.get(i), Path.of(file)));
+            }
+        }
+        return readers.size() == 1 ? readers.get(0) : new MultiReaderClient(readers);
+    }
+
+    private static IControlIdClient store(IControlIdClient client, String dir) {
+        try {
+            return new PunchStoreClient(client, Path.of(dir));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("store.dir inválido: " + dir + " (" + e.getMessage() + ")", e);
+        }
+    }
+
+    private static String describe(Properties p, String source, String incremental, long ttl) {
+        StringBuilder sb = new StringBuilder(source);
+        String storeDir = p.getProperty("store.dir", "").trim();
+        if (!storeDir.isEmpty()) sb.append(" + store(").append(storeDir).append(')');
+        if (!incremental.isEmpty()) sb.append(" + incremental(").append(incremental).append(')');
+        if (bool(p, "coalesce")) sb.append(" + coalesce");
+        if (ttl > 0) sb.append(" + users-cache(").append(ttl).append("s)");
+        if (bool(p, "metrics")) sb.append(" + metrics");
+        return sb.toString();
+    }
+
+    /* ======================== Helpers ======================== */
+
+    private static boolean bool(Properties p, String key) {
+        return Boolean.parseBoolean(p.getProperty(key, "false").trim());
+    }
+
+    /** Rutas relativas se toman desde el directorio de trabajo (igual que el datos.xlsx de siempre). */
+    private static String path(Properties p, String key, String def) {
+        return workDir().resolve(p.getProperty(key, def).trim()).toString();
+    }
+
+    private static Path workDir() {
+        return Path.of(System.getProperty("user.dir"));
+    }
+}
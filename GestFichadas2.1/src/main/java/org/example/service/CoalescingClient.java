@@ -0,0 +1,176 @@
+package org.example.service;
+
+import org.example.Fichada;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorador "single-flight" de IControlIdClient:
+ * - Si llega un fetchAccessLogs mientras otro con rango superpuesto sigue en vuelo,
+ *   se reutiliza ese request para la parte común y solo se piden al lector los tramos
+ *   que faltan (que a su vez quedan disponibles para otros llamadores).
+ * - Igual para fetchUsersMap: llamadas simultáneas comparten un único request.
+ *
+ * Caso típico: "Volver" y reingresar el mismo rango mientras el loadRows anterior
+ * todavía está trayendo fichadas.
+ */
+public class CoalescingClient implements IControlIdClient {
+
+    private final IControlIdClient delegate;
+
+    /** Requests de fichadas en vuelo (guardado por this). */
+    private final List<Flight> inFlight = new ArrayList<>();
+    private CompletableFuture<Map<Long, String>> usersFlight;
+
+    private record Flight(LocalDate from, LocalDate to, CompletableFuture<List<Fichada>> result) {}
+
+    /** Parte de la respuesta: qué vuelo la trae y qué tramo de fechas tomamos de él. */
+    private record Part(Flight flight, LocalDate from, LocalDate to) {}
+
+    public CoalescingClient(IControlIdClient delegate) {
+        this.delegate = delegate;
+    }
+
+    /* ======================== Login ======================== */
+
+    public boolean login(String user, String pass) {
+        return delegate.login(user, pass);
+    }
+
+    /* ======================== Users ======================== */
+
+    public Map<Long, String> fetchUsersMap() {
+        CompletableFuture<Map<Long, String>> flight;
+        boolean leader = false;
+        synchronized (this) {
+            if (usersFlight == null) {
+                usersFlight = new CompletableFuture<>();
+                leader = true;
+            }
+            flight = usersFlight;
+        }
+
+        if (leader) {
+            try {
+                flight.complete(delegate.fetchUsersMap());
+            } catch (Throwable t) {
+                // Cualquier falla (también Error o checked "escondida") cierra el vuelo:
+                // si no, los que hicieron join quedan esperando para siempre.
+                flight.completeExceptionally(t);
+            } finally {
+                synchronized (this) {
+                    usersFlight = null;
+                }
+            }
+        }
+        return flight.join();
+    }
+
+    @Override
+    public String usersFingerprint() {
+        return delegate.usersFingerprint();
+    }
+
+    /* ======================== Access Logs ======================== */
+
+    public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
+        List<Part> parts = new ArrayList<>(3);
+        List<Flight> led = new ArrayList<>(2);
+
+        synchronized (this) {
+            Flight shared = bestOverlap(from, to);
+            if (shared == null) {
+                Flight f = startFlight(from, to);
+                led.add(f);
+                parts.add(new Part(f, from, to));
+            } else {
+                LocalDate ovFrom = from.isAfter(shared.from()) ? from : shared.from();
+                LocalDate ovTo   = to.isBefore(shared.to()) ? to : shared.to();
+                parts.add(new Part(shared, ovFrom, ovTo));
+                System.out.println("[coalesce] " + from + ".." + to + " comparte " + ovFrom + ".." + ovTo);
+
+                if (from.isBefore(ovFrom)) {
+                    Flight f = startFlight(from, ovFrom.minusDays(1));
+                    led.add(f);
+                    parts.add(new Part(f, f.from(), f.to()));
+                }
+                if (to.isAfter(ovTo)) {
+                    Flight f = startFlight(ovTo.plusDays(1), to);
+                    led.add(f);
+                    parts.add(new Part(f, f.from(), f.to()));
+                }
+            }
+        }
+
+        // Los tramos que lidera esta llamada: el primero en este hilo, el resto en hilos virtuales
+        for (int i = 1; i < led.size(); i++) {
+            Flight f = led.get(i);
+            Thread.ofVirtual().start(() -> run(f));
+        }
+        if (!led.isEmpty()) run(led.get(0));
+
+        List<List<Fichada>> pieces = new ArrayList<>(parts.size());
+        for (Part p : parts) {
+            List<Fichada> all = Futures.await(p.flight().result());
+            List<Fichada> piece = new ArrayList<>();
+            for (Fichada f : all) {
+                LocalDate d = f.dateTime().toLocalDate();
+                if (!d.isBefore(p.from()) && !d.isAfter(p.to())) piece.add(f);
+            }
+            pieces.add(piece);
+        }
+        return FichadaMerge.mergeSorted(pieces);
+    }
+
+    @Override
+    public List<Fichada> fetchAccessLogsAfter(long afterId) throws Exception {
+        return delegate.fetchAccessLogsAfter(afterId);
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return delegate.supportsIncremental();
+    }
+
+    @Override
+    public long lastAccessLogId() throws Exception {
+        return delegate.lastAccessLogId();
+    }
+
+    /** Vuelo en curso con mayor cantidad de días en común con [from, to]; null si ninguno se superpone. */
+    private Flight bestOverlap(LocalDate from, LocalDate to) {
+        Flight best = null;
+        long bestDays = 0;
+        for (Flight f : inFlight) {
+            LocalDate a = from.isAfter(f.from()) ? from : f.from();
+            LocalDate b = to.isBefore(f.to()) ? to : f.to();
+            long days = b.toEpochDay() - a.toEpochDay() + 1;
+            if (days > bestDays) {
+                best = f;
+                bestDays = days;
+            }
+        }
+        return best;
+    }
+
+    private Flight startFlight(LocalDate from, LocalDate to) {
+        Flight f = new Flight(from, to, new CompletableFuture<>());
+        inFlight.add(f);
+        return f;
+    }
+
+    private void run(Flight f) {
+        try {
+            f.result().complete(delegate.fetchAccessLogs(f.from(), f.to()));
+        } catch (Throwable t) {
+            // Idem: un Error (OOM, StackOverflow) también completa el vuelo; Futures.await lo relanza
+            f.result().completeExceptionally(t);
+        } finally {
+            synchronized (this) {
+                inFlight.remove(f);
+            }
+        }
+    }
+}
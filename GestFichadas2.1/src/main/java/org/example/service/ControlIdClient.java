@@ -1,39 +1,70 @@
 package org.example.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.Fichada;
+import org.example.service.HttpTransport.HttpResp;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URL;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
 /**
- * Cliente “compat” para Control iD:
- * - Usa HttpURLConnection (estable, sin problemas de chunked).
+ * Cliente para Control iD:
+ * - Transporte HTTP con pool keep-alive (PooledHttpTransport). Con legacyTransport=true
+ *   vuelve al modo “compat” HttpURLConnection + Connection: close (firmwares con problemas de chunked).
  * - Login, /users y /access_logs (con WHERE en formato ARRAY).
+ * - /access_logs partido en tramos de días pedidos en paralelo (tamaño adaptativo),
+ *   paginado con offset/limit y parseado en streaming (JsonParser sobre el InputStream).
  * - Ajuste horario vía TIME_OFFSET_MIN (si el reloj guarda UTC).
  */
 public class ControlIdClient implements IControlIdClient {
 
     private final ObjectMapper mapper = new ObjectMapper();
     private final String baseUrl;     // ej: "http://192.168.88.240"
+    private final HttpTransport transport;
     private String sessionId;
 
     /** Ajuste horario en minutos (Argentina: 180). 0 si el reloj ya está en hora local. */
     private static final int TIME_OFFSET_MIN = 180;
 
+    /** Registros por página en load_objects (offset/limit). */
+    private static final int PAGE_SIZE = 1000;
+
+    /** Máximo de requests simultáneos contra el lector. */
+    private static final int MAX_PARALLEL_REQUESTS = 4;
+
+    /** Tamaño inicial de tramo (días) para rangos largos. */
+    private static final int DEFAULT_SLICE_DAYS = 7;
+
+    /** Ventanas (días hacia atrás) en las que lastAccessLogId busca el mayor id; 0 = sin límite. */
+    private static final int[] LAST_ID_WINDOW_DAYS = {1, 7, 31, 366, 0};
+
+    private final Semaphore requestPermits = new Semaphore(MAX_PARALLEL_REQUESTS);
+    private volatile TimeSlicer slicer = new TimeSlicer(DEFAULT_SLICE_DAYS, MAX_PARALLEL_REQUESTS, true);
+
     public ControlIdClient(String baseUrl) {
+        this(baseUrl, false);
+    }
+
+    /**
+     * @param legacyTransport true = una conexión por request con "Connection: close"
+     *                        (para firmwares que manejan mal las respuestas chunked).
+     */
+    public ControlIdClient(String baseUrl, boolean legacyTransport) {
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.transport = legacyTransport ? new LegacyHttpTransport() : new PooledHttpTransport();
     }
 
     /* ======================== Login ======================== */
@@ -44,12 +75,12 @@ public class ControlIdClient implements IControlIdClient {
                     "{\"login\":\"%s\",\"password\":\"%s\"}", esc(user), esc(pass));
             HttpResp r = postJson(baseUrl + "/login.fcgi", json, null);
 
-            System.out.println("[login] HTTP " + r.code);
-            System.out.println("[login] body: " + r.body);
+            System.out.println("[login] HTTP " + r.code());
+            System.out.println("[login] body: " + r.body());
 
-            if (r.code != 200 || r.body == null || r.body.isBlank()) return false;
+            if (r.code() != 200 || r.body() == null || r.body().isBlank()) return false;
 
-            JsonNode node = mapper.readTree(r.body);
+            JsonNode node = mapper.readTree(r.body());
             if (node.has("session")) {
                 sessionId = node.get("session").asText();
                 return true;
@@ -73,13 +104,13 @@ public class ControlIdClient implements IControlIdClient {
         try {
             HttpResp r = postJson(baseUrl + "/load_objects.fcgi",
                     "{\"object\":\"users\",\"limit\":10000}", cookie());
-            System.out.println("[users] HTTP " + r.code);
-            if (r.code >= 400) {
-                System.out.println("[users] body: " + r.body);
+            System.out.println("[users] HTTP " + r.code());
+            if (r.code() >= 400) {
+                System.out.println("[users] body: " + r.body());
                 return Collections.emptyMap();
             }
 
-            JsonNode arr = mapper.readTree(r.body).path("users");
+            JsonNode arr = mapper.readTree(r.body()).path("users");
             Map<Long, String> out = new HashMap<>();
             if (arr.isArray()) {
                 for (JsonNode u : arr) {
@@ -95,6 +126,42 @@ public class ControlIdClient implements IControlIdClient {
         }
     }
 
+    /**
+     * Huella barata del padrón: cantidad de usuarios y mayor id, pidiendo solo el campo "id".
+     * null si el lector no respondió.
+     */
+    @Override
+    public String usersFingerprint() {
+        try {
+            requestPermits.acquire();
+            try {
+                return transport.post(baseUrl + "/load_objects.fcgi",
+                        "{\"object\":\"users\",\"fields\":[\"id\"],\"limit\":10000}", cookie(),
+                        (code, body) -> {
+                            if (code >= 400) return null;
+                            long count = 0;
+                            long maxId = 0;
+                            try (JsonParser p = mapper.getFactory().createParser(body)) {
+                                JsonToken t;
+                                while ((t = p.nextToken()) != null) {
+                                    if (t == JsonToken.FIELD_NAME && "id".equals(p.currentName())) {
+                                        p.nextToken();
+                                        count++;
+                                        maxId = Math.max(maxId, p.getValueAsLong(0));
+                                    }
+                                }
+                            }
+                            return count + ":" + maxId;
+                        });
+            } finally {
+                requestPermits.release();
+            }
+        } catch (Exception ex) {
+            System.out.println("usersFingerprint WARNING: " + ex.getMessage());
+            return null;
+        }
+    }
+
     /* ======================== Access Logs ======================== */
 
     /**
@@ -103,86 +170,251 @@ public class ControlIdClient implements IControlIdClient {
      *     { "field":"time", "operator":">=", "value": fromEpoch },
      *     { "field":"time", "operator":"<=", "value": toEpoch }
      *   ]
+     *
+     * El rango se parte en tramos de días (TimeSlicer) que se piden en paralelo; el tamaño
+     * del tramo se adapta a la latencia observada. Cada tramo se pagina con offset/limit
+     * (PAGE_SIZE): la primera página se pide sola y, si viene llena, las siguientes se piden
+     * de a tandas de MAX_PARALLEL_REQUESTS en paralelo hasta encontrar una página incompleta.
      */
     public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
         ensureLogin();
+        return slicer.fetch(from, to, (a, b) -> fetchAccessLogsSlice(a, b, a.equals(from)));
+    }
 
-        long fromEpoch = from.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
-        long toEpoch   = to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond() - 1;
+    /**
+     * Un tramo [a, b]. Como después se suma TIME_OFFSET_MIN, el tramo pide al lector desde
+     * "a 00:00 - offset" para no perder las marcas que, ya ajustadas, caen en la madrugada de "a".
+     * El primer tramo arranca en "from 00:00" sin restar, igual que la consulta sin tramos.
+     */
+    private List<Fichada> fetchAccessLogsSlice(LocalDate a, LocalDate b, boolean firstSlice) throws Exception {
+        long offsetSec = TIME_OFFSET_MIN * 60L;
+        long fromEpoch = a.atStartOfDay(ZoneId.systemDefault()).toEpochSecond() - (firstSlice ? 0 : offsetSec);
+        long toEpoch   = b.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond() - offsetSec - 1;
 
-        String jsonArrayWhere = String.format(Locale.US,
-                "{\"object\":\"access_logs\",\"where\":["
-                        + "{\"field\":\"time\",\"operator\":\">=\",\"value\":%d},"
-                        + "{\"field\":\"time\",\"operator\":\"<=\",\"value\":%d}"
-                        + "],\"limit\":2000}", fromEpoch, toEpoch);
+        String where = String.format(Locale.US,
+                "{\"field\":\"time\",\"operator\":\">=\",\"value\":%d},"
+                        + "{\"field\":\"time\",\"operator\":\"<=\",\"value\":%d}",
+                fromEpoch, toEpoch);
 
-        HttpResp r = postJson(baseUrl + "/load_objects.fcgi", jsonArrayWhere, cookie());
-        System.out.println("[access_logs ARRAY where] HTTP " + r.code);
-        if (r.code >= 400) throw new RuntimeException("HTTP " + r.code + " body=" + r.body);
+        return fetchAccessLogsWhere(where, a, b);
+    }
 
-        JsonNode arr = mapper.readTree(r.body).path("access_logs");
-        if (!arr.isArray()) return Collections.emptyList();
+    /**
+     * Configura los tramos de fetchAccessLogs.
+     * @param sliceDays tamaño inicial del tramo en días (1..31)
+     * @param adaptive  true = el tamaño se ajusta solo según la latencia del lector
+     */
+    public void configureSlicing(int sliceDays, boolean adaptive) {
+        this.slicer = new TimeSlicer(sliceDays, MAX_PARALLEL_REQUESTS, adaptive);
+    }
 
-        List<Fichada> out = new ArrayList<>();
-        for (JsonNode n : arr) {
-            long epoch = n.path("time").asLong(0);
-            if (epoch <= 0) continue;
+    /** Fichadas con id > afterId, sin filtro de fechas (WHERE id > afterId). */
+    @Override
+    public List<Fichada> fetchAccessLogsAfter(long afterId) throws Exception {
+        ensureLogin();
 
-            LocalDateTime dt = Instant.ofEpochSecond(epoch)
-                    .plusSeconds(TIME_OFFSET_MIN * 60L)
-                    .atZone(ZoneId.systemDefault()).toLocalDateTime();
+        String where = String.format(Locale.US,
+                "{\"field\":\"id\",\"operator\":\">\",\"value\":%d}", afterId);
 
-            LocalDate d = dt.toLocalDate();
-            if (d.isBefore(from) || d.isAfter(to)) continue;
+        return fetchAccessLogsWhere(where, null, null);
+    }
 
-            Long uid = n.hasNonNull("user_id") ? n.get("user_id").asLong() : null;
-            long id = n.path("id").asLong();
-            out.add(new Fichada(id, dt, uid));
+    @Override
+    public boolean supportsIncremental() {
+        return true;
+    }
+
+    /**
+     * Mayor id de access_logs pidiendo solo el campo "id" de lo más reciente: primero el último
+     * día y, si no hay nada, ventanas cada vez más grandes (LAST_ID_WINDOW_DAYS). Con marcas
+     * recientes es un único request chico; sin ninguna marca en el último año se recorre todo.
+     */
+    @Override
+    public long lastAccessLogId() throws Exception {
+        ensureLogin();
+        long nowEpoch = Instant.now().getEpochSecond() - TIME_OFFSET_MIN * 60L;
+
+        for (int days : LAST_ID_WINDOW_DAYS) {
+            String where = (days == 0) ? "" : String.format(Locale.US,
+                    "{\"field\":\"time\",\"operator\":\">=\",\"value\":%d}", nowEpoch - days * 86_400L);
+            long maxId = maxAccessLogIdWhere(where);
+            if (maxId > 0) return maxId;
         }
+        return 0;
+    }
 
-        out.sort(Comparator
-                .comparing(Fichada::userId, Comparator.nullsLast(Long::compareTo))
-                .thenComparing(Fichada::dateTime));
+    /** Mayor id que cumple el WHERE, paginando de a PAGE_SIZE ids. */
+    private long maxAccessLogIdWhere(String where) throws Exception {
+        long maxId = 0;
+        for (int offset = 0; ; offset += PAGE_SIZE) {
+            String json = String.format(Locale.US,
+                    "{\"object\":\"access_logs\",\"where\":[%s],\"fields\":[\"id\"],"
+                            + "\"order\":[\"id\"],\"limit\":%d,\"offset\":%d}",
+                    where, PAGE_SIZE, offset);
+
+            IdPage page;
+            requestPermits.acquire();
+            try {
+                page = transport.post(baseUrl + "/load_objects.fcgi", json, cookie(), (code, body) -> {
+                    if (code >= 400) {
+                        throw new RuntimeException("HTTP " + code + " body=" + HttpTransport.readAll(body));
+                    }
+                    int count = 0;
+                    long max = 0;
+                    try (JsonParser p = mapper.getFactory().createParser(body)) {
+                        JsonToken t;
+                        while ((t = p.nextToken()) != null) {
+                            if (t == JsonToken.FIELD_NAME && "id".equals(p.currentName())) {
+                                p.nextToken();
+                                count++;
+                                max = Math.max(max, p.getValueAsLong(0));
+                            }
+                        }
+                    }
+                    return new IdPage(count, max);
+                });
+            } finally {
+                requestPermits.release();
+            }
+
+            maxId = Math.max(maxId, page.maxId());
+            if (page.rawCount() < PAGE_SIZE) return maxId;
+        }
+    }
+
+    private record IdPage(int rawCount, long maxId) {}
+
+    /**
+     * Pide access_logs con el WHERE dado (contenido del array), paginando con offset/limit.
+     * from/to (opcionales) filtran por fecha local ya ajustada con TIME_OFFSET_MIN.
+     */
+    private List<Fichada> fetchAccessLogsWhere(String where, LocalDate from, LocalDate to) throws Exception {
+        Page first = fetchAccessLogPage(where, 0, from, to);
+        List<Fichada> out = new ArrayList<>(first.logs());
+
+        boolean more = first.rawCount() >= PAGE_SIZE;
+        int offset = PAGE_SIZE;
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (more) {
+                List<Future<Page>> wave = new ArrayList<>(MAX_PARALLEL_REQUESTS);
+                for (int i = 0; i < MAX_PARALLEL_REQUESTS; i++) {
+                    int pageOffset = offset;
+                    wave.add(pool.submit(() -> fetchAccessLogPage(where, pageOffset, from, to)));
+                    offset += PAGE_SIZE;
+                }
+                for (Future<Page> f : wave) {
+                    Page p = Futures.await(f);
+                    out.addAll(p.logs());
+                    if (p.rawCount() < PAGE_SIZE) more = false;
+                }
+            }
+        }
+
+        out.sort(Fichada.BY_USER_AND_TIME);
         return out;
     }
 
-    /* ======================== HTTP helper ======================== */
+    /** Una página de access_logs: fichadas ya filtradas + cantidad cruda devuelta por el lector. */
+    private record Page(List<Fichada> logs, int rawCount) {}
 
-    private record HttpResp(int code, String body) {}
+    private Page fetchAccessLogPage(String where, int offset, LocalDate from, LocalDate to) throws Exception {
+        String json = String.format(Locale.US,
+                "{\"object\":\"access_logs\",\"where\":[%s],"
+                        + "\"order\":[\"id\"],\"limit\":%d,\"offset\":%d}",
+                where, PAGE_SIZE, offset);
 
-    private HttpResp postJson(String url, String json, String cookie) throws Exception {
-        URL u = URI.create(url).toURL();
-        HttpURLConnection c = (HttpURLConnection) u.openConnection();
-        c.setRequestMethod("POST");
-        c.setRequestProperty("Content-Type", "application/json");
-        c.setRequestProperty("Accept", "application/json");
-        c.setRequestProperty("Connection", "close"); // evita chunked/EOF
-        if (cookie != null) c.setRequestProperty("Cookie", cookie);
-        c.setDoOutput(true);
-        c.setConnectTimeout(10_000);
-        c.setReadTimeout(60_000);
-
-        try (OutputStream os = c.getOutputStream()) {
-            os.write(json.getBytes());
+        requestPermits.acquire();
+        try {
+            return transport.post(baseUrl + "/load_objects.fcgi", json, cookie(), (code, body) -> {
+                System.out.println("[access_logs ARRAY where] offset=" + offset + " HTTP " + code);
+                if (code >= 400) {
+                    throw new RuntimeException("HTTP " + code + " body=" + HttpTransport.readAll(body));
+                }
+                List<Fichada> logs = new ArrayList<>();
+                int rawCount = readAccessLogs(body, from, to, logs::add);
+                return new Page(logs, rawCount);
+            });
+        } finally {
+            requestPermits.release();
         }
+    }
+
+    /**
+     * Parser en streaming de {"access_logs":[{...},...]}: recorre los tokens directamente
+     * del InputStream y emite cada Fichada a medida que la lee (no arma String ni árbol JsonNode).
+     *
+     * @return cantidad de objetos access_logs leídos (antes de filtrar), para decidir si hay otra página
+     */
+    private int readAccessLogs(InputStream is, LocalDate from, LocalDate to,
+                               Consumer<Fichada> sink) throws IOException {
+        int rawCount = 0;
+        try (JsonParser p = mapper.getFactory().createParser(is)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return 0;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if (!"access_logs".equals(field) || value != JsonToken.START_ARRAY) {
+                    p.skipChildren();
+                    continue;
+                }
 
-        int code = c.getResponseCode();
-        String body;
-        try (InputStream is = (code >= 400 ? c.getErrorStream() : c.getInputStream())) {
-            body = readAll(is);
+                JsonToken item;
+                while ((item = p.nextToken()) != null && item != JsonToken.END_ARRAY) {
+                    if (item != JsonToken.START_OBJECT) {
+                        p.skipChildren(); // elemento que no es un log: se saltea entero
+                        continue;
+                    }
+                    rawCount++;
+                    long epoch = 0;
+                    long id = 0;
+                    Long uid = null;
+
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = p.currentName();
+                        JsonToken t = p.nextToken();
+                        if (t.isStructStart()) {
+                            // Objeto/array anidado (aunque sea time/id/user_id): se saltea completo
+                            // para no leer un token de adentro y desincronizar el resto de la página.
+                            p.skipChildren();
+                            continue;
+                        }
+                        switch (name) {
+                            case "time"    -> epoch = p.getValueAsLong(0);
+                            case "id"      -> id = p.getValueAsLong(0);
+                            case "user_id" -> uid = (t == JsonToken.VALUE_NULL) ? null : p.getValueAsLong(0);
+                            default        -> { }
+                        }
+                    }
+
+                    Fichada f = toFichada(id, epoch, uid, from, to);
+                    if (f != null) sink.accept(f);
+                }
+            }
         }
-        c.disconnect();
-        return new HttpResp(code, body);
+        return rawCount;
     }
 
-    private static String readAll(InputStream is) throws Exception {
-        if (is == null) return "";
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(is))) {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = br.readLine()) != null) sb.append(line);
-            return sb.toString();
-        }
+    /** Convierte un access_log crudo; null si no tiene hora o cae fuera de [from, to] (si vienen). */
+    private static Fichada toFichada(long id, long epoch, Long uid, LocalDate from, LocalDate to) {
+        if (epoch <= 0) return null;
+
+        LocalDateTime dt = Instant.ofEpochSecond(epoch)
+                .plusSeconds(TIME_OFFSET_MIN * 60L)
+                .atZone(ZoneId.systemDefault()).toLocalDateTime();
+
+        LocalDate d = dt.toLocalDate();
+        if (from != null && d.isBefore(from)) return null;
+        if (to != null && d.isAfter(to)) return null;
+
+        return new Fichada(id, dt, uid);
+    }
+
+    /* ======================== HTTP helper ======================== */
+
+    private HttpResp postJson(String url, String json, String cookie) throws Exception {
+        return transport.postJson(url, json, cookie);
     }
 
     private void ensureLogin() {
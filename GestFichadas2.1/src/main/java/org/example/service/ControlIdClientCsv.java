@@ -0,0 +1,709 @@
+package org.example.service;
+
+import org.example.Fichada;
+import org.example.FichadaBatch;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cliente que emula Control iD leyendo los CSV exportados (fichadas_corregido.csv / usuarios_corregido.csv):
+ * - fichadas: ID,FechaHora,UserID  (FechaHora "dd/MM/yyyy HH:mm:ss"; también acepta "yyyy-MM-dd HH:mm:ss")
+ * - usuarios: ID,Nombre
+ *
+ * Pensado para dumps de millones de filas:
+ * - El archivo se mapea en memoria (FileChannel.map) y se parsea byte a byte directo sobre
+ *   el mapeo: sin copiarlo al heap, sin String.split ni objetos intermedios por campo.
+ * - Se parte en tramos alineados a fin de línea y cada núcleo parsea el suyo.
+ * - Igual que ControlIdClientExcel: cache en memoria por mes (válida mientras el archivo no cambie)
+ *   e índice sidecar PunchDateIndex con offsets de bytes, para leer solo los meses pedidos.
+ * - La cache guarda cada mes como FichadaBatch (columnas primitivas); las Fichada se crean
+ *   solo si se piden con fetchAccessLogs.
+ */
+public class ControlIdClientCsv implements IControlIdClient {
+
+    /** Ajuste horario en minutos (Argentina: 180). Mismo criterio que ControlIdClientExcel. */
+    private static final int TIME_OFFSET_MIN = 180;
+
+    private static final long NONE = Long.MIN_VALUE;           // UserID vacío
+    private static final long MIN_CHUNK_BYTES = 1L << 20;      // por debajo no conviene partir
+    private static final long MAX_CHUNK_BYTES = 64L << 20;     // tramo por tarea (un mapeo por tarea)
+
+    private final Path fichadasCsv;
+    private final Path usuariosCsv;
+
+    public ControlIdClientCsv(String fichadasCsvPath, String usuariosCsvPath) {
+        this.fichadasCsv = Path.of(fichadasCsvPath);
+        this.usuariosCsv = Path.of(usuariosCsvPath);
+    }
+
+    /* ======================== Login ======================== */
+
+    public boolean login(String user, String pass) {
+        // Para emulación: alcanza con que ambos CSV existan y se puedan leer
+        System.out.println("=== ControlIdClientCsv.login() ===");
+        System.out.println("Fichadas: " + fichadasCsv.toAbsolutePath());
+        System.out.println("Usuarios: " + usuariosCsv.toAbsolutePath());
+        boolean ok = Files.isReadable(fichadasCsv) && Files.isReadable(usuariosCsv);
+        System.out.println(ok ? "✅ Login exitoso - usando CSV" : "❌ CSV no encontrado o no accesible");
+        return ok;
+    }
+
+    /* ======================== Users ======================== */
+
+    private record UsersData(long lastModified, long length, Map<Long, String> users) {}
+
+    private UsersData usersCache;
+
+    /** Devuelve mapa id->nombre desde el CSV de usuarios. */
+    public synchronized Map<Long, String> fetchUsersMap() {
+        try {
+            long lastModified = Files.getLastModifiedTime(usuariosCsv).toMillis();
+            long length = Files.size(usuariosCsv);
+            UsersData u = usersCache;
+            if (u == null || u.lastModified() != lastModified || u.length() != length) {
+                u = new UsersData(lastModified, length, readUsers());
+                usersCache = u;
+            }
+            return new HashMap<>(u.users());
+        } catch (IOException e) {
+            System.out.println("Error leyendo usuarios desde CSV: " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    /** Huella del padrón: fecha de modificación + tamaño del CSV de usuarios. */
+    @Override
+    public String usersFingerprint() {
+        try {
+            return Files.getLastModifiedTime(usuariosCsv).toMillis() + ":" + Files.size(usuariosCsv);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Padrón chico: se lee entero, pero con el mismo tokenizer (nombres con comillas/comas incluidos). */
+    private Map<Long, String> readUsers() throws IOException {
+        Map<Long, String> users = new HashMap<>();
+        try (FileChannel ch = FileChannel.open(usuariosCsv, StandardOpenOption.READ)) {
+            Tokenizer t = new Tokenizer(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+            for (int line = 1; t.hasMore(); line++) {
+                long id = t.number();
+                if (t.ok && t.expect(',')) {
+                    String name = t.text();
+                    if (!t.ok) {
+                        System.out.println("[csv] WARNING " + usuariosCsv.getFileName() + " línea " + line
+                                + ": comillas sin cerrar, se toma hasta fin de línea (\"" + name + "\")");
+                    }
+                    users.put(id, name);
+                }
+                t.nextLine();
+            }
+        }
+        return users;
+    }
+
+    /* ======================== Access Logs ======================== */
+
+    public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
+        System.out.println("=== ControlIdClientCsv.fetchAccessLogs() " + from + " a " + to + " ===");
+
+        return fetchAccessLogBatch(from, to).toList();
+    }
+
+    @Override
+    public FichadaBatch fetchAccessLogBatch(LocalDate from, LocalDate to) throws Exception {
+        // Cada mes cacheado ya está ordenado y son consecutivos: por usuario basta concatenar
+        return FichadaBatch.concat(monthsFor(from, to),
+                FichadaBatch.toEpochSecond(from), FichadaBatch.toEpochSecond(to.plusDays(1)));
+    }
+
+    /* ======================== Cache en memoria ======================== */
+
+    /** Fichadas parseadas por mes; se descarta entera si el CSV cambia (fecha o tamaño). */
+    private static final class CsvData {
+        final long lastModified;
+        final long length;
+        final Map<YearMonth, FichadaBatch> logsByMonth = new HashMap<>();
+        PunchDateIndex index;   // null = todavía no hay índice válido
+        boolean complete;       // true = se leyó el archivo entero
+
+        CsvData(long lastModified, long length, PunchDateIndex index) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.index = index;
+        }
+    }
+
+    private CsvData cached;
+
+    private synchronized List<FichadaBatch> monthsFor(LocalDate from, LocalDate to) throws Exception {
+        if (!Files.isRegularFile(fichadasCsv)) throw new FileNotFoundException(fichadasCsv.toAbsolutePath().toString());
+        long lastModified = Files.getLastModifiedTime(fichadasCsv).toMillis();
+        long length = Files.size(fichadasCsv);
+
+        CsvData d = cached;
+        if (d == null || d.lastModified != lastModified || d.length != length) {
+            d = new CsvData(lastModified, length, PunchDateIndex.load(fichadasCsv));
+            cached = d;
+        }
+
+        List<YearMonth> wanted = new ArrayList<>();
+        for (YearMonth m = YearMonth.from(from); !m.isAfter(YearMonth.from(to)); m = m.plusMonths(1)) {
+            wanted.add(m);
+        }
+
+        if (!d.complete) {
+            List<YearMonth> missing = new ArrayList<>();
+            for (YearMonth m : wanted) {
+                if (!d.logsByMonth.containsKey(m)) missing.add(m);
+            }
+            if (!missing.isEmpty()) {
+                long t0 = System.nanoTime();
+                int rows;
+                if (d.index == null) {
+                    rows = loadAll(d);
+                } else {
+                    rows = loadMonths(d, missing);
+                }
+                System.out.println("[csv] " + rows + " fichadas parseadas en "
+                        + (System.nanoTime() - t0) / 1_000_000 + " ms");
+            }
+        }
+
+        List<FichadaBatch> out = new ArrayList<>(wanted.size());
+        for (YearMonth m : wanted) {
+            out.add(d.logsByMonth.getOrDefault(m, FichadaBatch.EMPTY));
+        }
+        return out;
+    }
+
+    /** Archivo entero: llena todos los meses y arma/guarda el índice de offsets. */
+    private int loadAll(CsvData d) throws Exception {
+        List<Chunk> chunks = parse(new long[]{0, d.length});
+
+        PunchDateIndex.Builder builder = new PunchDateIndex.Builder();
+        for (Chunk c : chunks) {
+            // Filas consecutivas del mismo mes forman un tramo [inicio primera, fin última)
+            int i = 0;
+            while (i < c.n) {
+                int j = i;
+                while (j + 1 < c.n && c.month[j + 1] == c.month[i]) j++;
+                long end = (j + 1 < c.n) ? c.pos[j + 1] : c.end;
+                builder.add(monthOf(c.month[i]), c.pos[i], end);
+                i = j + 1;
+            }
+        }
+
+        int rows = store(d, chunks, List.of());
+        d.complete = true;
+        d.index = builder.build(d.lastModified, d.length);
+        d.index.save(fichadasCsv);
+        return rows;
+    }
+
+    /** Solo los tramos de bytes de los meses pedidos (según el índice). */
+    private int loadMonths(CsvData d, List<YearMonth> months) throws Exception {
+        return store(d, parse(d.index.runsFor(months)), months);
+    }
+
+    /* ======================== Armado por mes ======================== */
+
+    // Clave de orden empaquetada en un long: [rango usuario | segundo dentro del mes | fila]
+    private static final int ROW_BITS    = 24; // hasta 16M filas por mes
+    private static final int SECOND_BITS = 22; // un mes tiene < 2^22 segundos
+    private static final int RANK_BITS   = 63 - ROW_BITS - SECOND_BITS;
+
+    /**
+     * Agrupa las filas parseadas por mes, las ordena como Fichada.BY_USER_AND_TIME y las
+     * pasa ya ordenadas a un FichadaBatch (sin crear objetos por fila).
+     * El orden se resuelve con un sort de long[] en vez de un Comparator sobre objetos;
+     * la fila va en la clave, así que los empates quedan en orden de archivo (estable).
+     */
+    private static int store(CsvData d, List<Chunk> chunks, List<YearMonth> months) {
+        // 1) Filas de cada mes como referencias (chunk << 32 | fila)
+        Map<Integer, LongList> byMonth = new HashMap<>();
+        int rows = 0;
+        for (int ci = 0; ci < chunks.size(); ci++) {
+            Chunk c = chunks.get(ci);
+            rows += c.n;
+            int lastKey = Integer.MIN_VALUE;
+            LongList last = null;
+            for (int i = 0; i < c.n; i++) {
+                if (c.month[i] != lastKey) {
+                    lastKey = c.month[i];
+                    last = byMonth.computeIfAbsent(lastKey, k -> new LongList());
+                }
+                last.add(((long) ci << 32) | i);
+            }
+        }
+
+        // En lecturas parciales solo valen los meses pedidos: los tramos del índice pueden
+        // traer filas de otros meses, que no quedaron leídos enteros
+        if (!months.isEmpty()) {
+            Set<Integer> keep = new HashSet<>();
+            for (YearMonth m : months) keep.add(m.getYear() * 12 + m.getMonthValue() - 1);
+            byMonth.keySet().retainAll(keep);
+        }
+
+        // 2) Usuarios distintos, ordenados: su posición es el "rango" que va en la clave
+        UserRanks ranks = UserRanks.of(chunks);
+
+        Map<YearMonth, FichadaBatch> built = new HashMap<>();
+        for (YearMonth m : months) built.put(m, FichadaBatch.EMPTY); // meses pedidos sin datos
+
+        byMonth.entrySet().parallelStream().forEach(e -> {
+            FichadaBatch batch = buildMonth(monthOf(e.getKey()), e.getValue(), chunks, ranks);
+            synchronized (built) {
+                built.put(monthOf(e.getKey()), batch);
+            }
+        });
+        d.logsByMonth.putAll(built);
+        return rows;
+    }
+
+    private static FichadaBatch buildMonth(YearMonth m, LongList refs, List<Chunk> chunks, UserRanks ranks) {
+        int n = refs.n;
+        long monthStart = Timestamps.daysFromCivil(m.getYear(), m.getMonthValue(), 1) * 86_400L;
+        boolean packed = n < (1 << ROW_BITS) && ranks.size() < (1L << RANK_BITS) - 1;
+        FichadaBatch.Builder out = new FichadaBatch.Builder(n);
+
+        if (!packed) {
+            // El Builder ordena por su cuenta (también estable)
+            for (int i = 0; i < n; i++) {
+                long ref = refs.v[i];
+                Chunk c = chunks.get((int) (ref >>> 32));
+                int r = (int) ref;
+                out.add(c.id[r], c.secs[r], c.uid[r]);
+            }
+            return out.build();
+        }
+
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            long ref = refs.v[i];
+            Chunk c = chunks.get((int) (ref >>> 32));
+            int r = (int) ref;
+            long secs = c.secs[r] - monthStart;
+            int rank = (c.uid[r] == NONE) ? ranks.size() : ranks.rankOf(c.uid[r]); // sin usuario al final
+            keys[i] = ((long) rank << (SECOND_BITS + ROW_BITS)) | (secs << ROW_BITS) | i;
+        }
+        Arrays.sort(keys);
+
+        long rowMask = (1L << ROW_BITS) - 1;
+        for (int k = 0; k < n; k++) {
+            long ref = refs.v[(int) (keys[k] & rowMask)];
+            Chunk c = chunks.get((int) (ref >>> 32));
+            int r = (int) ref;
+            out.add(c.id[r], c.secs[r], c.uid[r]); // NONE == FichadaBatch.NO_USER
+        }
+        return out.build();
+    }
+
+    /**
+     * Usuario → posición en el orden ascendente de ids (hash abierto de longs, sin boxing).
+     */
+    private static final class UserRanks {
+        private final long[] slots;
+        private final int[] rankAt;
+        private final int size;
+
+        private UserRanks(long[] sortedIds) {
+            int cap = Integer.highestOneBit(Math.max(4, sortedIds.length * 2)) << 1;
+            slots = new long[cap];
+            rankAt = new int[cap];
+            Arrays.fill(slots, NONE);
+            size = sortedIds.length;
+            for (int i = 0; i < sortedIds.length; i++) {
+                int s = slot(sortedIds[i]);
+                slots[s] = sortedIds[i];
+                rankAt[s] = i;
+            }
+        }
+
+        static UserRanks of(List<Chunk> chunks) {
+            // Distintos con un set abierto chico (hay pocos usuarios y muchas filas)
+            long[] set = new long[1024];
+            Arrays.fill(set, NONE);
+            int count = 0;
+            for (Chunk c : chunks) {
+                for (int i = 0; i < c.n; i++) {
+                    long u = c.uid[i];
+                    if (u == NONE) continue;
+                    int mask = set.length - 1;
+                    int s = mix(u) & mask;
+                    while (set[s] != NONE && set[s] != u) s = (s + 1) & mask;
+                    if (set[s] == NONE) {
+                        set[s] = u;
+                        if (++count * 2 > set.length) set = grow(set);
+                    }
+                }
+            }
+            long[] ids = new long[count];
+            int k = 0;
+            for (long u : set) if (u != NONE) ids[k++] = u;
+            Arrays.sort(ids);
+            return new UserRanks(ids);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int rankOf(long uid) {
+            return rankAt[slot(uid)];
+        }
+
+        private int slot(long uid) {
+            int mask = slots.length - 1;
+            int s = mix(uid) & mask;
+            while (slots[s] != NONE && slots[s] != uid) s = (s + 1) & mask;
+            return s;
+        }
+
+        private static long[] grow(long[] set) {
+            long[] bigger = new long[set.length * 2];
+            Arrays.fill(bigger, NONE);
+            int mask = bigger.length - 1;
+            for (long u : set) {
+                if (u == NONE) continue;
+                int s = mix(u) & mask;
+                while (bigger[s] != NONE) s = (s + 1) & mask;
+                bigger[s] = u;
+            }
+            return bigger;
+        }
+
+        private static int mix(long x) {
+            x *= 0x9E3779B97F4A7C15L;
+            return (int) (x ^ (x >>> 32));
+        }
+    }
+
+    /** Clave de mes año*12+(mes-1) → YearMonth. */
+    private static YearMonth monthOf(int key) {
+        return YearMonth.of(key / 12, key % 12 + 1);
+    }
+
+    /** long[] que crece. */
+    private static final class LongList {
+        long[] v = new long[1024];
+        int n;
+
+        void add(long x) {
+            if (n == v.length) v = Arrays.copyOf(v, n * 2);
+            v[n++] = x;
+        }
+    }
+
+    /* ======================== Parseo en paralelo ======================== */
+
+    /**
+     * Resultado de un tramo, en columnas primitivas (sin objetos por fila):
+     * id, fecha-hora local en segundos epoch, usuario (NONE = vacío),
+     * offset de la línea y mes (año*12+mes-1) para el índice.
+     */
+    private static final class Chunk {
+        long[] id;
+        long[] secs;
+        long[] uid;
+        long[] pos;
+        int[] month;
+        int n;
+        long end;
+
+        Chunk(int capacity) {
+            id = new long[capacity];
+            secs = new long[capacity];
+            uid = new long[capacity];
+            pos = new long[capacity];
+            month = new int[capacity];
+        }
+
+        void add(long rowId, long rowSecs, long rowUid, long linePos, int monthKey) {
+            if (n == id.length) {
+                int cap = n * 2;
+                id = Arrays.copyOf(id, cap);
+                secs = Arrays.copyOf(secs, cap);
+                uid = Arrays.copyOf(uid, cap);
+                pos = Arrays.copyOf(pos, cap);
+                month = Arrays.copyOf(month, cap);
+            }
+            id[n] = rowId;
+            secs[n] = rowSecs;
+            uid[n] = rowUid;
+            pos[n] = linePos;
+            month[n] = monthKey;
+            n++;
+        }
+    }
+
+    /**
+     * Parsea los tramos de bytes [s0, e0, s1, e1, ...] (cada uno empieza en inicio de línea).
+     * Los tramos grandes se parten en pedazos alineados a fin de línea, uno por tarea.
+     */
+    private List<Chunk> parse(long[] regions) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<long[]> work = new ArrayList<>();
+
+        try (FileChannel ch = FileChannel.open(fichadasCsv, StandardOpenOption.READ)) {
+            long total = 0;
+            for (int i = 0; i < regions.length; i += 2) total += regions[i + 1] - regions[i];
+            long target = Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, total / cores + 1));
+
+            for (int i = 0; i < regions.length; i += 2) {
+                long start = regions[i];
+                long end = regions[i + 1];
+                while (start < end) {
+                    long cut = (end - start <= target) ? end : nextLineStart(ch, start + target, end);
+                    work.add(new long[]{start, cut});
+                    start = cut;
+                }
+            }
+
+            List<Chunk> out = new ArrayList<>(work.size());
+            try (ExecutorService pool = Executors.newFixedThreadPool(Math.min(cores, Math.max(1, work.size())))) {
+                List<Future<Chunk>> futures = new ArrayList<>(work.size());
+                for (long[] w : work) {
+                    futures.add(pool.submit(() -> parseChunk(ch, w[0], w[1])));
+                }
+                for (Future<Chunk> f : futures) {
+                    out.add(Futures.await(f));
+                }
+            }
+            return out;
+        }
+    }
+
+    /** Primer inicio de línea en [from, limit] (o limit si no hay más saltos de línea). */
+    private static long nextLineStart(FileChannel ch, long from, long limit) throws IOException {
+        long p = from;
+        while (p < limit) {
+            int len = (int) Math.min(64 * 1024, limit - p);
+            MappedByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, p, len);
+            for (int i = 0; i < len; i++) {
+                if (b.get(i) == '\n') return p + i + 1;
+            }
+            p += len;
+        }
+        return limit;
+    }
+
+    private static Chunk parseChunk(FileChannel ch, long start, long end) throws IOException {
+        // Se tokeniza directo sobre el mapeo (page cache), sin copiar el tramo al heap
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        Tokenizer t = new Tokenizer(buf);
+        Chunk c = new Chunk(estimateRows(buf));
+        c.end = end;
+
+        while (t.hasMore()) {
+            int lineStart = t.p;
+            long id = t.number();
+            if (t.ok && t.expect(',')) {
+                long secs = t.dateTime();
+                if (t.ok && t.expect(',')) {
+                    long uid = t.number();
+                    if (!t.ok) uid = NONE;
+
+                    secs += TIME_OFFSET_MIN * 60L;
+                    c.add(id, secs, uid, start + lineStart, Timestamps.monthKeyOfDay(Math.floorDiv(secs, 86_400L)));
+                }
+            }
+            t.nextLine(); // encabezado, líneas vacías o inválidas: se saltean
+        }
+        return c;
+    }
+
+    /** Filas estimadas según el largo medio de las primeras líneas (evita ir duplicando arrays). */
+    private static int estimateRows(ByteBuffer b) {
+        int sample = Math.min(b.limit(), 64 * 1024);
+        int lines = 0;
+        for (int i = 0; i < sample; i++) {
+            if (b.get(i) == '\n') lines++;
+        }
+        if (lines == 0) return 16;
+        long est = (long) b.limit() * lines / sample;
+        return (int) Math.min(Integer.MAX_VALUE - 16, est + est / 10 + 16);
+    }
+
+    /* ======================== Tokenizer ======================== */
+
+    /**
+     * Lectura byte a byte sobre el contenido de un tramo (el mapeo, con get absoluto).
+     * Cada método deja `ok` en false si el campo no tiene el formato esperado.
+     */
+    private static final class Tokenizer {
+        private final ByteBuffer b;
+        private final int limit;
+        int p;
+        boolean ok;
+
+        Tokenizer(ByteBuffer b) {
+            this.b = b;
+            this.limit = b.limit();
+            skipBom();
+        }
+
+        private int at(int i) {
+            return b.get(i);
+        }
+
+        private void skipBom() {
+            if (limit >= 3 && (at(0) & 0xFF) == 0xEF && (at(1) & 0xFF) == 0xBB && (at(2) & 0xFF) == 0xBF) p = 3;
+        }
+
+        boolean hasMore() {
+            return p < limit;
+        }
+
+        /** Entero no negativo, con espacios/comillas alrededor opcionales. */
+        long number() {
+            skipPadding();
+            long v = 0;
+            int start = p;
+            while (p < limit) {
+                int c = at(p);
+                if (c < '0' || c > '9') break;
+                v = v * 10 + (c - '0');
+                p++;
+            }
+            ok = p > start;
+            skipPadding();
+            return v;
+        }
+
+        boolean expect(char sep) {
+            if (p < limit && at(p) == sep) {
+                p++;
+                return true;
+            }
+            ok = false;
+            return false;
+        }
+
+        /**
+         * "dd/MM/yyyy HH:mm[:ss]" o "yyyy-MM-dd[ T]HH:mm[:ss]" → segundos epoch (como si fuera UTC).
+         * Valida rangos (día dentro del mes incluido).
+         */
+        long dateTime() {
+            // Caso típico: layout fijo "dd/MM/yyyy HH:mm:ss" de una (ver Timestamps)
+            long fast = Timestamps.fastEpochSeconds(b, p, limit);
+            if (fast != Timestamps.INVALID && (p + 19 == limit || at(p + 19) < '0' || at(p + 19) > '9')) {
+                p += 19;
+                skipPadding();
+                ok = true;
+                return fast;
+            }
+
+            long a = number();
+            if (!ok) return 0;
+            long year, month, day;
+            if (p < limit && at(p) == '-') {
+                p++;
+                year = a;
+                month = number();
+                if (!ok || !expect('-')) return 0;
+                day = number();
+            } else {
+                day = a;
+                if (!expect('/')) return 0;
+                month = number();
+                if (!ok || !expect('/')) return 0;
+                year = number();
+            }
+            if (!ok) return 0;
+            if (p < limit && at(p) == 'T') p++;
+
+            long h = number();
+            if (!ok || !expect(':')) return 0;
+            long mi = number();
+            if (!ok) return 0;
+            long s = 0;
+            if (p < limit && at(p) == ':') {
+                p++;
+                s = number();
+                if (!ok) return 0;
+            }
+
+            if (!Timestamps.valid(year, month, day, h, mi, s)) {
+                ok = false;
+                return 0;
+            }
+            ok = true;
+            return Timestamps.epochSeconds(year, month, day, h, mi, s);
+        }
+
+        /**
+         * Resto del campo (hasta fin de línea) como texto; respeta "comillas" y "" escapadas.
+         * Un campo entre comillas no pasa del fin de línea: si no se cerró, devuelve lo leído
+         * hasta ahí y deja `ok` en false (una comilla suelta no se come las líneas siguientes).
+         */
+        String text() {
+            ByteArrayBuilder raw = new ByteArrayBuilder();
+            ok = true;
+            if (p < limit && at(p) == '"') {
+                p++;
+                boolean closed = false;
+                while (p < limit) {
+                    int c = at(p);
+                    if (c == '\n' || c == '\r') break;
+                    p++;
+                    if (c == '"') {
+                        if (p < limit && at(p) == '"') {
+                            p++;
+                        } else {
+                            closed = true;
+                            break;
+                        }
+                    }
+                    raw.add((byte) c);
+                }
+                ok = closed;
+            } else {
+                while (p < limit && at(p) != '\n' && at(p) != '\r') raw.add((byte) at(p++));
+            }
+            return raw.toUtf8().trim();
+        }
+
+        void nextLine() {
+            while (p < limit && at(p) != '\n') p++;
+            if (p < limit) p++;
+        }
+
+        private void skipPadding() {
+            while (p < limit) {
+                int c = at(p);
+                if (c != ' ' && c != '"' && c != '\t') break;
+                p++;
+            }
+        }
+    }
+
+    /** byte[] que crece, para armar campos entre comillas. */
+    private static final class ByteArrayBuilder {
+        private byte[] b = new byte[32];
+        private int n;
+
+        void add(byte v) {
+            if (n == b.length) b = Arrays.copyOf(b, n * 2);
+            b[n++] = v;
+        }
+
+        String toUtf8() {
+            return new String(b, 0, n, StandardCharsets.UTF_8);
+        }
+    }
+}
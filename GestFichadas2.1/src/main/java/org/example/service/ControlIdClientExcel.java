@@ -6,9 +6,10 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.*;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 /**
@@ -18,18 +19,27 @@ import java.util.*;
  * - Estructura Excel esperada:
  *   * Hoja "usuarios": columnas ID (A), Nombre (B)
  *   * Hoja "fichadas": columnas ID (A), FechaHora (B), UserID (C)
+ * - Por defecto lee en streaming (XlsxSheetStreamer): memoria plana aunque el Excel tenga
+ *   un año de fichadas. Con legacyDom=true usa XSSFWorkbook como antes.
+ * - El Excel se parsea una sola vez por sesión (ver ExcelData): login, usuarios y fichadas
+ *   salen de memoria hasta que el archivo cambie. Con el índice sidecar (`datos.xlsx.idx`)
+ *   solo se decodifican las filas de los meses pedidos.
  */
 public class ControlIdClientExcel implements IControlIdClient {
 
     private final String excelFilePath;
-    private final DateTimeFormatter excelDateTimeFormatter;
-    
+    private final boolean legacyDom;
+
     /** Ajuste horario en minutos (Argentina: 180). 0 si el Excel ya está en hora local. */
     private static final int TIME_OFFSET_MIN = 180;
 
     public ControlIdClientExcel(String excelFilePath) {
+        this(excelFilePath, false);
+    }
+
+    public ControlIdClientExcel(String excelFilePath, boolean legacyDom) {
         this.excelFilePath = excelFilePath;
-        this.excelDateTimeFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+        this.legacyDom = legacyDom;
     }
 
     /* ======================== Login ======================== */
@@ -42,12 +52,10 @@ public class ControlIdClientExcel implements IControlIdClient {
         System.out.println("Directorio de trabajo actual: " + System.getProperty("user.dir"));
         System.out.println("¿Archivo existe? " + excelFile.exists());
         System.out.println("¿Archivo es legible? " + excelFile.canRead());
-        
-        try (FileInputStream fis = new FileInputStream(excelFilePath)) {
-            System.out.println("✅ Archivo Excel abierto correctamente");
-            Workbook workbook = new XSSFWorkbook(fis);
-            System.out.println("✅ Workbook creado correctamente");
-            workbook.close();
+
+        // El login deja el padrón en memoria (y carga el índice de fechas si está)
+        try {
+            data();
             System.out.println("✅ Login exitoso - usando Excel");
             return true;
         } catch (IOException e) {
@@ -61,11 +69,233 @@ public class ControlIdClientExcel implements IControlIdClient {
 
     /** Devuelve mapa id->nombre desde la hoja "usuarios" del Excel */
     public Map<Long, String> fetchUsersMap() {
+        try {
+            return new HashMap<>(data().users);
+        } catch (IOException e) {
+            System.out.println("Error leyendo usuarios desde Excel: " + e.getMessage());
+            return new HashMap<>();
+        }
+    }
+
+    /** Huella del padrón: fecha de modificación + tamaño del archivo Excel. */
+    @Override
+    public String usersFingerprint() {
+        File f = new File(excelFilePath);
+        if (!f.isFile()) return null;
+        return f.lastModified() + ":" + f.length();
+    }
+
+    /**
+     * ¿El Excel tiene el formato de fichadas crudas (hoja "fichadas" con encabezado "ID" en A1)?
+     * Lee solo la primera fila. Los reportes exportados (fichadas_*.xlsx con Fecha/Usuario/Turno...)
+     * dan false.
+     */
+    boolean hasPunchLayout() {
+        boolean[] ok = new boolean[1];
+        try {
+            XlsxSheetStreamer.stream(new File(excelFilePath), "fichadas", 1, new long[]{0, 1}, (rowNum, cells) -> {
+                ok[0] = cells[0] != null && "ID".equalsIgnoreCase(getStringValue(cells[0]));
+            });
+        } catch (IOException e) {
+            return false;
+        }
+        return ok[0];
+    }
+
+    /* ======================== Access Logs ======================== */
+
+    /** Trae fichadas entre fechas desde la hoja "fichadas" del Excel */
+    public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
+        System.out.println("=== ControlIdClientExcel.fetchAccessLogs() ===");
+        System.out.println("Buscando fichadas desde " + from + " hasta " + to);
+        System.out.println("Archivo Excel: " + new File(excelFilePath).getAbsolutePath());
+
+        // Cada mes cacheado ya está ordenado: se filtran y se unen con merge
+        List<List<Fichada>> pieces = new ArrayList<>();
+        for (List<Fichada> month : monthsFor(from, to)) {
+            List<Fichada> piece = new ArrayList<>();
+            for (Fichada f : month) {
+                LocalDate fichadaDate = f.dateTime().toLocalDate();
+                if (!fichadaDate.isBefore(from) && !fichadaDate.isAfter(to)) {
+                    piece.add(f);
+                }
+            }
+            pieces.add(piece);
+        }
+        return FichadaMerge.mergeSorted(pieces);
+    }
+
+    /* ======================== Cache en memoria ======================== */
+
+    /**
+     * Contenido parseado del Excel. Vale mientras el archivo conserve ruta, fecha de
+     * modificación y tamaño; si cambia, se descarta entero.
+     * - Padrón completo.
+     * - Fichadas por mes, solo los meses ya pedidos: con el índice sidecar (PunchDateIndex)
+     *   se decodifican únicamente las filas de esos meses.
+     * - Sin índice (primera lectura o archivo nuevo) se lee la hoja completa y se arma.
+     */
+    private static final class ExcelData {
+        final String path;
+        final long lastModified;
+        final long length;
+        final Map<Long, String> users;
+        final Map<YearMonth, List<Fichada>> logsByMonth = new HashMap<>();
+        PunchDateIndex index;   // null = todavía no hay índice válido
+        boolean complete;       // true = se leyó la hoja entera (todos los meses en memoria)
+
+        ExcelData(String path, long lastModified, long length, Map<Long, String> users, PunchDateIndex index) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.users = users;
+            this.index = index;
+        }
+    }
+
+    private ExcelData cached;
+
+    private synchronized ExcelData data() throws IOException {
+        File f = new File(excelFilePath);
+        if (!f.isFile()) throw new FileNotFoundException(f.getAbsolutePath());
+
+        String path = f.getAbsolutePath();
+        long lastModified = f.lastModified();
+        long length = f.length();
+
+        ExcelData d = cached;
+        if (d != null && d.path.equals(path) && d.lastModified == lastModified && d.length == length) {
+            return d;
+        }
+
+        System.out.println("✅ Leyendo Excel" + (d == null ? "" : " (el archivo cambió)"));
+        Map<Long, String> users = legacyDom ? readUsersDom() : readUsersStreaming();
+        PunchDateIndex index = legacyDom ? null : PunchDateIndex.load(f.toPath());
+        cached = new ExcelData(path, lastModified, length, Collections.unmodifiableMap(users), index);
+        return cached;
+    }
+
+    /** Listas (ordenadas) de los meses que tocan [from, to], leyendo del Excel los que falten. */
+    private synchronized List<List<Fichada>> monthsFor(LocalDate from, LocalDate to) throws IOException {
+        ExcelData d = data();
+
+        List<YearMonth> wanted = new ArrayList<>();
+        for (YearMonth m = YearMonth.from(from); !m.isAfter(YearMonth.from(to)); m = m.plusMonths(1)) {
+            wanted.add(m);
+        }
+
+        if (!d.complete) {
+            List<YearMonth> missing = new ArrayList<>();
+            for (YearMonth m : wanted) {
+                if (!d.logsByMonth.containsKey(m)) missing.add(m);
+            }
+            if (!missing.isEmpty()) {
+                long t0 = System.nanoTime();
+                if (d.index == null) {
+                    loadAll(d);
+                } else {
+                    loadMonths(d, missing);
+                }
+                System.out.println("✅ Fichadas en memoria: " + d.logsByMonth.size() + " meses ("
+                        + (System.nanoTime() - t0) / 1_000_000 + " ms)");
+            }
+        }
+
+        List<List<Fichada>> out = new ArrayList<>(wanted.size());
+        for (YearMonth m : wanted) {
+            out.add(d.logsByMonth.getOrDefault(m, List.of()));
+        }
+        return out;
+    }
+
+    /** Hoja entera: llena todos los meses y (en streaming) arma y guarda el índice. */
+    private void loadAll(ExcelData d) throws IOException {
+        PunchDateIndex.Builder builder = legacyDom ? null : new PunchDateIndex.Builder();
+        List<Fichada> all = legacyDom ? readLogsDom() : readLogsStreaming(null, builder);
+        storeByMonth(d, all, List.of());
+        d.complete = true;
+
+        if (builder != null) {
+            d.index = builder.build(d.lastModified, d.length);
+            d.index.save(Path.of(d.path));
+        }
+    }
+
+    /** Solo las filas de los meses pedidos (según el índice). */
+    private void loadMonths(ExcelData d, List<YearMonth> months) throws IOException {
+        List<Fichada> read = readLogsStreaming(d.index.runsFor(months), null);
+        storeByMonth(d, read, months);
+    }
+
+    /**
+     * @param months meses pedidos en una lectura parcial (vacío = hoja completa). En una lectura
+     *               parcial los tramos pueden traer filas de otros meses (índice colapsado):
+     *               esas se descartan, porque su mes no quedó leído entero.
+     */
+    private static void storeByMonth(ExcelData d, List<Fichada> logs, List<YearMonth> months) {
+        Map<YearMonth, List<Fichada>> byMonth = new HashMap<>();
+        for (YearMonth m : months) byMonth.put(m, new ArrayList<>()); // meses pedidos sin datos
+        for (Fichada f : logs) {
+            YearMonth m = YearMonth.from(f.dateTime());
+            if (months.isEmpty()) {
+                byMonth.computeIfAbsent(m, k -> new ArrayList<>()).add(f);
+            } else {
+                List<Fichada> list = byMonth.get(m);
+                if (list != null) list.add(f);
+            }
+        }
+        for (var e : byMonth.entrySet()) {
+            List<Fichada> list = e.getValue();
+            list.sort(Fichada.BY_USER_AND_TIME); // Ordenar igual que el original
+            d.logsByMonth.put(e.getKey(), Collections.unmodifiableList(list));
+        }
+    }
+
+    /* ======================== Lectura del Excel ======================== */
+
+    private Map<Long, String> readUsersStreaming() throws IOException {
+        Map<Long, String> users = new HashMap<>();
+        boolean found = XlsxSheetStreamer.stream(new File(excelFilePath), "usuarios", 2, (rowNum, cells) -> {
+            if (rowNum == 0) return; // Saltar encabezado
+            if (cells[0] != null && cells[1] != null) {
+                users.put(getNumericValue(cells[0]), getStringValue(cells[1]));
+            }
+        });
+        if (!found) System.out.println("Hoja 'usuarios' no encontrada en el Excel");
+        return users;
+    }
+
+    /**
+     * @param rows    tramos de filas a decodificar (null = todas)
+     * @param builder si no es null, registra fila → fecha para el índice
+     */
+    private List<Fichada> readLogsStreaming(long[] rows, PunchDateIndex.Builder builder) throws IOException {
+        List<Fichada> fichadas = new ArrayList<>();
+        boolean found = XlsxSheetStreamer.stream(new File(excelFilePath), "fichadas", 3, rows, (rowNum, cells) -> {
+            if (rowNum == 0) return; // Saltar encabezado
+            XlsxSheetStreamer.RawCell idCell = cells[0];
+            XlsxSheetStreamer.RawCell dateTimeCell = cells[1];
+            XlsxSheetStreamer.RawCell userIdCell = cells[2];
+
+            if (idCell != null && dateTimeCell != null) {
+                LocalDateTime dateTime = getDateTimeValue(dateTimeCell);
+                if (dateTime != null) {
+                    Long userId = userIdCell != null ? getNumericValue(userIdCell) : null;
+                    fichadas.add(new Fichada(getNumericValue(idCell), dateTime, userId));
+                    if (builder != null) builder.add(dateTime.toLocalDate(), rowNum, rowNum + 1);
+                }
+            }
+        });
+        if (!found) System.out.println("Hoja 'fichadas' no encontrada en el Excel");
+        return fichadas;
+    }
+
+    private Map<Long, String> readUsersDom() throws IOException {
         Map<Long, String> users = new HashMap<>();
-        
+
         try (FileInputStream fis = new FileInputStream(excelFilePath);
              Workbook workbook = new XSSFWorkbook(fis)) {
-            
+
             Sheet sheet = workbook.getSheet("usuarios");
             if (sheet == null) {
                 System.out.println("Hoja 'usuarios' no encontrada en el Excel");
@@ -74,38 +304,26 @@ public class ControlIdClientExcel implements IControlIdClient {
 
             for (Row row : sheet) {
                 if (row.getRowNum() == 0) continue; // Saltar encabezado
-                
+
                 Cell idCell = row.getCell(0);
                 Cell nameCell = row.getCell(1);
-                
+
                 if (idCell != null && nameCell != null) {
                     long id = getNumericValue(idCell);
                     String name = getStringValue(nameCell);
                     users.put(id, name);
                 }
             }
-            
-        } catch (IOException e) {
-            System.out.println("Error leyendo usuarios desde Excel: " + e.getMessage());
         }
-        
         return users;
     }
 
-    /* ======================== Access Logs ======================== */
-
-    /** Trae fichadas entre fechas desde la hoja "fichadas" del Excel */
-    public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
-        System.out.println("=== ControlIdClientExcel.fetchAccessLogs() ===");
-        System.out.println("Buscando fichadas desde " + from + " hasta " + to);
-        System.out.println("Archivo Excel: " + new File(excelFilePath).getAbsolutePath());
-        
+    private List<Fichada> readLogsDom() throws IOException {
         List<Fichada> fichadas = new ArrayList<>();
-        
+
         try (FileInputStream fis = new FileInputStream(excelFilePath);
              Workbook workbook = new XSSFWorkbook(fis)) {
-            System.out.println("✅ Leyendo fichadas desde Excel");
-            
+
             Sheet sheet = workbook.getSheet("fichadas");
             if (sheet == null) {
                 System.out.println("Hoja 'fichadas' no encontrada en el Excel");
@@ -114,35 +332,22 @@ public class ControlIdClientExcel implements IControlIdClient {
 
             for (Row row : sheet) {
                 if (row.getRowNum() == 0) continue; // Saltar encabezado
-                
+
                 Cell idCell = row.getCell(0);
                 Cell dateTimeCell = row.getCell(1);
                 Cell userIdCell = row.getCell(2);
-                
+
                 if (idCell != null && dateTimeCell != null) {
                     long id = getNumericValue(idCell);
                     LocalDateTime dateTime = getDateTimeValue(dateTimeCell);
                     Long userId = userIdCell != null ? getNumericValue(userIdCell) : null;
-                    
+
                     if (dateTime != null) {
-                        LocalDate fichadaDate = dateTime.toLocalDate();
-                        if (!fichadaDate.isBefore(from) && !fichadaDate.isAfter(to)) {
-                            fichadas.add(new Fichada(id, dateTime, userId));
-                        }
+                        fichadas.add(new Fichada(id, dateTime, userId));
                     }
                 }
             }
-            
-        } catch (IOException e) {
-            System.out.println("Error leyendo fichadas desde Excel: " + e.getMessage());
-            throw e;
-        }
-        
-        // Ordenar igual que el original
-        fichadas.sort(Comparator
-                .comparing(Fichada::userId, Comparator.nullsLast(Long::compareTo))
-                .thenComparing(Fichada::dateTime));
-        
+        }
         return fichadas;
     }
 
@@ -178,6 +383,60 @@ public class ControlIdClientExcel implements IControlIdClient {
         }
     }
 
+    /* ---- Equivalentes para celdas del streaming (mismas reglas que las de arriba) ---- */
+
+    private long getNumericValue(XlsxSheetStreamer.RawCell cell) {
+        switch (cell.kind) {
+            case NUMERIC:
+            case FORMULA:
+                double v = cell.number();
+                return Double.isNaN(v) ? 0 : (long) v;
+            case STRING:
+                try {
+                    return Long.parseLong(cell.text.trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            default:
+                return 0;
+        }
+    }
+
+    private String getStringValue(XlsxSheetStreamer.RawCell cell) {
+        switch (cell.kind) {
+            case STRING:
+                return cell.text.trim();
+            case NUMERIC:
+                return String.valueOf((long) cell.number());
+            case FORMULA:
+                double v = cell.number();
+                return Double.isNaN(v) ? cell.text : String.valueOf(v);
+            default:
+                return "";
+        }
+    }
+
+    private LocalDateTime getDateTimeValue(XlsxSheetStreamer.RawCell cell) {
+        try {
+            switch (cell.kind) {
+                case NUMERIC:
+                    if (cell.dateFormatted) {
+                        return cell.dateValue().toInstant()
+                                .plusSeconds(TIME_OFFSET_MIN * 60L)
+                                .atZone(ZoneId.systemDefault())
+                                .toLocalDateTime();
+                    }
+                    break;
+                case STRING:
+                    return Timestamps.parse(cell.text.trim())
+                            .plusMinutes(TIME_OFFSET_MIN);
+            }
+        } catch (Exception e) {
+            System.out.println("Error parseando fecha: " + e.getMessage());
+        }
+        return null;
+    }
+
     private LocalDateTime getDateTimeValue(Cell cell) {
         try {
             switch (cell.getCellType()) {
@@ -192,7 +451,7 @@ public class ControlIdClientExcel implements IControlIdClient {
                     break;
                 case STRING:
                     String dateStr = cell.getStringCellValue().trim();
-                    return LocalDateTime.parse(dateStr, excelDateTimeFormatter)
+                    return Timestamps.parse(dateStr)
                             .plusMinutes(TIME_OFFSET_MIN);
             }
         } catch (Exception e) {
@@ -0,0 +1,50 @@
+package org.example.service;
+
+import org.example.Fichada;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/** Merge k-way de listas de fichadas ya ordenadas con Fichada.BY_USER_AND_TIME. */
+final class FichadaMerge {
+
+    private FichadaMerge() {}
+
+    /** Cursor sobre una de las listas de entrada. */
+    private static final class Cursor {
+        final List<Fichada> list;
+        int pos;
+
+        Cursor(List<Fichada> list) {
+            this.list = list;
+        }
+
+        Fichada head() {
+            return list.get(pos);
+        }
+    }
+
+    /**
+     * Une las listas respetando el orden usuario/fecha-hora en O(n log k).
+     * Cada lista de entrada debe venir ordenada con Fichada.BY_USER_AND_TIME.
+     */
+    static List<Fichada> mergeSorted(List<List<Fichada>> sortedLists) {
+        int total = 0;
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+                (a, b) -> Fichada.BY_USER_AND_TIME.compare(a.head(), b.head()));
+        for (List<Fichada> l : sortedLists) {
+            if (l == null || l.isEmpty()) continue;
+            total += l.size();
+            heap.add(new Cursor(l));
+        }
+
+        List<Fichada> out = new ArrayList<>(total);
+        while (!heap.isEmpty()) {
+            Cursor c = heap.poll();
+            out.add(c.head());
+            if (++c.pos < c.list.size()) heap.add(c);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/** Helpers para esperar tareas de los clientes concurrentes. */
+final class Futures {
+
+    private Futures() {}
+
+    /** Espera el resultado y, si la tarea falló, relanza la excepción o Error original (no el ExecutionException). */
+    static <T> T await(Future<T> f) throws Exception {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception ex) throw ex;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Capa de transporte HTTP usada por ControlIdClient.
+ * - PooledHttpTransport: java.net.http.HttpClient compartido, keep-alive, varios requests en vuelo.
+ * - LegacyHttpTransport: HttpURLConnection con "Connection: close" (firmwares con problemas de chunked).
+ */
+interface HttpTransport {
+
+    record HttpResp(int code, String body) {}
+
+    /** Lee la respuesta directamente del stream (sin armar el String del body). */
+    @FunctionalInterface
+    interface BodyReader<T> {
+        /** body nunca es null (vacío si no hubo cuerpo); el transporte lo cierra al terminar. */
+        T read(int code, InputStream body) throws Exception;
+    }
+
+    /** POST con cuerpo JSON; cookie puede ser null. */
+    <T> T post(String url, String json, String cookie, BodyReader<T> reader) throws Exception;
+
+    /** POST con cuerpo JSON devolviendo el body completo como String (respuestas chicas: login, users). */
+    default HttpResp postJson(String url, String json, String cookie) throws Exception {
+        return post(url, json, cookie, (code, body) -> new HttpResp(code, readAll(body)));
+    }
+
+    static String readAll(InputStream is) throws Exception {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        is.transferTo(buf);
+        return buf.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,7 @@
 package org.example.service;
 
 import org.example.Fichada;
+import org.example.FichadaBatch;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -34,4 +35,57 @@ public interface IControlIdClient {
      * @throws Exception si hay error de conexión/lectura
      */
     List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception;
-}
\ No newline at end of file
+
+    /**
+     * Obtiene fichadas entre fechas en formato columnar (ver FichadaBatch)
+     * Los clientes que leen a columnas primitivas lo llenan directo, sin crear Fichada.
+     * @param from fecha desde
+     * @param to fecha hasta
+     * @return lote ordenado por usuario/fecha-hora
+     * @throws Exception si hay error de conexión/lectura
+     */
+    default FichadaBatch fetchAccessLogBatch(LocalDate from, LocalDate to) throws Exception {
+        return FichadaBatch.of(fetchAccessLogs(from, to));
+    }
+
+    /**
+     * Obtiene las fichadas con id mayor a afterId, de cualquier fecha
+     * (sincronización incremental; ver IncrementalSyncClient).
+     * @param afterId último id ya conocido
+     * @return fichadas nuevas ordenadas
+     * @throws UnsupportedOperationException si supportsIncremental() es false
+     * @throws Exception si hay error de conexión/lectura
+     */
+    default List<Fichada> fetchAccessLogsAfter(long afterId) throws Exception {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " no soporta sincronización incremental");
+    }
+
+    /**
+     * Indica si la fuente implementa fetchAccessLogsAfter y lastAccessLogId
+     * (ids de fichada únicos y crecientes). IncrementalSyncClient lo consulta al crearse.
+     * @return true si se puede sincronizar por id
+     */
+    default boolean supportsIncremental() {
+        return false;
+    }
+
+    /**
+     * Mayor id de fichada que tiene hoy la fuente, de cualquier fecha
+     * (marca de agua inicial de IncrementalSyncClient).
+     * @return mayor id, 0 si la fuente no tiene fichadas
+     * @throws UnsupportedOperationException si supportsIncremental() es false
+     * @throws Exception si hay error de conexión/lectura
+     */
+    default long lastAccessLogId() throws Exception {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " no soporta sincronización incremental");
+    }
+
+    /**
+     * Huella barata del padrón de usuarios (ej: cantidad + mayor id, o fecha del archivo)
+     * para detectar cambios sin traer todos los nombres (ver UsersCacheClient).
+     * @return huella, o null si la fuente no puede calcularla
+     */
+    default String usersFingerprint() {
+        return null;
+    }
+}
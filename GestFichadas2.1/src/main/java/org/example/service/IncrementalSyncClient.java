@@ -0,0 +1,227 @@
+package org.example.service;
+
+import org.example.Fichada;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorador de IControlIdClient con sincronización incremental:
+ * - Guarda en disco (cacheFile) las fichadas ya descargadas, el rango de fechas cubierto
+ *   y la "marca de agua" (mayor Fichada.id visto + su fecha/hora). La marca arranca en el
+ *   mayor id que tiene el lector al momento de la primera carga (lastAccessLogId), no en lo
+ *   que trajo ese primer rango: así un rango vacío o viejo no hace bajar todo el log después.
+ * - En cada fetchAccessLogs pide al lector SOLO lo nuevo (id > lastId) y, si el rango pedido
+ *   se sale de lo cubierto, los tramos de fechas que faltan.
+ * - Reabrir un período ya cargado cuesta un único request chico.
+ *
+ * Si el cliente envuelto no soporta sincronización por id (supportsIncremental), delega
+ * directo: no lee ni escribe cacheFile.
+ */
+public class IncrementalSyncClient implements IControlIdClient {
+
+    private static final int FILE_MAGIC   = 0x46494348; // "FICH"
+    private static final int FILE_VERSION = 3; // 3: tramos con un día de solapamiento (las v2 pueden tener huecos de madrugada)
+    private static final long NONE        = Long.MIN_VALUE; // userId o lastTime ausentes
+
+    private final IControlIdClient delegate;
+    private final Path cacheFile;
+    private final boolean incremental;
+
+    /**
+     * Lock en vez de synchronized: dentro de MultiReaderClient esto corre en un hilo virtual
+     * que espera a los hilos virtuales de ControlIdClient; con synchronized el hilo queda
+     * "pinned" a su carrier y con un solo núcleo los tramos nunca llegan a ejecutarse.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private boolean loaded;
+    private final Map<Long, Fichada> logsById = new HashMap<>();
+    private LocalDate coveredFrom;  // null = nada cubierto todavía
+    private LocalDate coveredTo;
+    private long lastId;
+    private LocalDateTime lastTime;
+
+    public IncrementalSyncClient(IControlIdClient delegate, Path cacheFile) {
+        this.delegate = delegate;
+        this.cacheFile = cacheFile;
+        this.incremental = delegate.supportsIncremental();
+        if (!incremental) {
+            System.out.println("[sync] " + delegate.getClass().getSimpleName()
+                    + " no soporta sincronización incremental → lectura directa, sin cache");
+        }
+    }
+
+    /* ======================== Login / Users ======================== */
+
+    public boolean login(String user, String pass) {
+        return delegate.login(user, pass);
+    }
+
+    public Map<Long, String> fetchUsersMap() {
+        return delegate.fetchUsersMap();
+    }
+
+    @Override
+    public String usersFingerprint() {
+        return delegate.usersFingerprint();
+    }
+
+    /* ======================== Access Logs ======================== */
+
+    public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
+        if (!incremental) return delegate.fetchAccessLogs(from, to);
+        lock.lock();
+        try {
+            return syncAndFilter(from, to);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Fichada> syncAndFilter(LocalDate from, LocalDate to) throws Exception {
+        ensureLoaded();
+
+        if (coveredFrom == null) {
+            // Primera vez: la marca de agua es el mayor id del lector, pedido ANTES del rango;
+            // lo que entre mientras tanto vuelve (repetido por id, sin duplicar) en el próximo paso 1.
+            long deviceLastId = delegate.lastAccessLogId();
+            merge(delegate.fetchAccessLogs(from, to), false);
+            lastId      = deviceLastId;
+            lastTime    = null;
+            coveredFrom = from;
+            coveredTo   = to;
+            System.out.println("[sync] primera carga, lastId=" + lastId + " (mayor id del lector)");
+        } else {
+            // 1) Lo nuevo desde la última sincronización (cualquier fecha)
+            List<Fichada> fresh = delegate.fetchAccessLogsAfter(lastId);
+            merge(fresh, true);
+            System.out.println("[sync] nuevas=" + fresh.size() + " lastId=" + lastId + " lastTime=" + lastTime);
+
+            // 2) Tramos del rango pedido que todavía no están cubiertos.
+            //    No mueven la marca de agua: lo creado mientras tanto vuelve en el próximo paso 1.
+            //    Cada tramo pisa un día de lo cubierto: el lector ajusta la hora (TIME_OFFSET_MIN)
+            //    y el borde de un pedido puede dejar afuera la madrugada del día vecino, que por
+            //    id ya quedó debajo de lastId. Los repetidos los absorbe merge (por id).
+            if (from.isBefore(coveredFrom)) {
+                merge(delegate.fetchAccessLogs(from, coveredFrom), false);
+                coveredFrom = from;
+            }
+            if (to.isAfter(coveredTo)) {
+                merge(delegate.fetchAccessLogs(coveredTo, to), false);
+                coveredTo = to;
+            }
+        }
+
+        save();
+
+        List<Fichada> out = new ArrayList<>();
+        for (Fichada f : logsById.values()) {
+            LocalDate d = f.dateTime().toLocalDate();
+            if (!d.isBefore(from) && !d.isAfter(to)) out.add(f);
+        }
+        out.sort(Fichada.BY_USER_AND_TIME);
+        return out;
+    }
+
+    @Override
+    public List<Fichada> fetchAccessLogsAfter(long afterId) throws Exception {
+        return delegate.fetchAccessLogsAfter(afterId);
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return incremental;
+    }
+
+    @Override
+    public long lastAccessLogId() throws Exception {
+        return delegate.lastAccessLogId();
+    }
+
+    /* ======================== Cache local ======================== */
+
+    private void merge(List<Fichada> logs, boolean advanceWatermark) {
+        for (Fichada f : logs) {
+            logsById.put(f.id(), f);
+            if (advanceWatermark && f.id() > lastId) {
+                lastId   = f.id();
+                lastTime = f.dateTime();
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        if (!Files.isRegularFile(cacheFile)) return;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                System.out.println("[sync] cache con formato desconocido, se ignora: " + cacheFile);
+                return;
+            }
+            LocalDate cFrom = LocalDate.ofEpochDay(in.readLong());
+            LocalDate cTo   = LocalDate.ofEpochDay(in.readLong());
+            long lId        = in.readLong();
+            long lTime      = in.readLong();
+            int count       = in.readInt();
+
+            Map<Long, Fichada> read = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                long id    = in.readLong();
+                long epoch = in.readLong();
+                long uid   = in.readLong();
+                read.put(id, new Fichada(id,
+                        LocalDateTime.ofEpochSecond(epoch, 0, ZoneOffset.UTC),
+                        uid == NONE ? null : uid));
+            }
+
+            logsById.putAll(read);
+            coveredFrom = cFrom;
+            coveredTo   = cTo;
+            lastId      = lId;
+            lastTime    = (lTime == NONE) ? null : LocalDateTime.ofEpochSecond(lTime, 0, ZoneOffset.UTC);
+            System.out.println("[sync] cache cargada: " + count + " fichadas, "
+                    + coveredFrom + " a " + coveredTo + ", lastId=" + lastId);
+        } catch (IOException e) {
+            System.out.println("[sync] no se pudo leer la cache (" + e.getMessage() + "), se reconstruye");
+        }
+    }
+
+    /** Escritura atómica: archivo temporal + move. */
+    private void save() {
+        try {
+            Path parent = cacheFile.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, cacheFile.getFileName().toString(), ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeLong(coveredFrom.toEpochDay());
+                out.writeLong(coveredTo.toEpochDay());
+                out.writeLong(lastId);
+                out.writeLong(lastTime == null ? NONE : lastTime.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(logsById.size());
+                for (Fichada f : logsById.values()) {
+                    out.writeLong(f.id());
+                    out.writeLong(f.dateTime().toEpochSecond(ZoneOffset.UTC));
+                    out.writeLong(f.userId() == null ? NONE : f.userId());
+                }
+            }
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("[sync] WARNING no se pudo guardar la cache: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.service;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Transporte "compat": una HttpURLConnection nueva por request y "Connection: close".
+ * Es el modo histórico del cliente; se mantiene para firmwares que cortan mal
+ * las respuestas chunked sobre conexiones persistentes.
+ */
+class LegacyHttpTransport implements HttpTransport {
+
+    @Override
+    public <T> T post(String url, String json, String cookie, BodyReader<T> reader) throws Exception {
+        URL u = URI.create(url).toURL();
+        HttpURLConnection c = (HttpURLConnection) u.openConnection();
+        try {
+            c.setRequestMethod("POST");
+            c.setRequestProperty("Content-Type", "application/json");
+            c.setRequestProperty("Accept", "application/json");
+            c.setRequestProperty("Connection", "close"); // evita chunked/EOF
+            if (cookie != null) c.setRequestProperty("Cookie", cookie);
+            c.setDoOutput(true);
+            c.setConnectTimeout(10_000);
+            c.setReadTimeout(60_000);
+
+            try (OutputStream os = c.getOutputStream()) {
+                os.write(json.getBytes(StandardCharsets.UTF_8));
+            }
+
+            int code = c.getResponseCode();
+            InputStream raw = (code >= 400 ? c.getErrorStream() : c.getInputStream());
+            try (InputStream is = (raw == null ? InputStream.nullInputStream() : raw)) {
+                return reader.read(code, is);
+            }
+        } finally {
+            c.disconnect();
+        }
+    }
+}
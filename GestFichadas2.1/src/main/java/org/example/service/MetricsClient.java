@@ -0,0 +1,168 @@
+package org.example.service;
+
+import org.example.Fichada;
+import org.example.FichadaBatch;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorador de IControlIdClient que mide cada llamada al cliente envuelto:
+ * - Cantidad de llamadas, errores, tiempo total y máximo por operación.
+ * - Cada fetch se loguea con su duración y cantidad de registros devueltos.
+ * - summary() arma una línea con los acumulados (se imprime también cada SUMMARY_EVERY fetchAccessLogs).
+ *
+ * Sirve para comparar en el sitio el efecto de activar cache / incremental / coalescing.
+ */
+public class MetricsClient implements IControlIdClient {
+
+    private static final int SUMMARY_EVERY = 10;
+
+    private final IControlIdClient delegate;
+    private final String name;
+
+    private final Stat login    = new Stat("login");
+    private final Stat users    = new Stat("users");
+    private final Stat logs     = new Stat("logs");
+    private final Stat logsAfter = new Stat("logsAfter");
+
+    /** Acumulados de una operación. */
+    private static final class Stat {
+        final String op;
+        final AtomicLong calls  = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong nanos  = new AtomicLong();
+        final AtomicLong max    = new AtomicLong();
+        final AtomicLong items  = new AtomicLong();
+
+        Stat(String op) {
+            this.op = op;
+        }
+
+        long record(long t0, int n, boolean ok) {
+            long dt = System.nanoTime() - t0;
+            long c = calls.incrementAndGet();
+            if (!ok) errors.incrementAndGet();
+            nanos.addAndGet(dt);
+            max.accumulateAndGet(dt, Math::max);
+            if (n > 0) items.addAndGet(n);
+            return c;
+        }
+
+        @Override
+        public String toString() {
+            long c = calls.get();
+            if (c == 0) return op + "=0";
+            return op + "=" + c + " (err " + errors.get()
+                    + ", prom " + nanos.get() / c / 1_000_000 + " ms"
+                    + ", máx " + max.get() / 1_000_000 + " ms"
+                    + ", " + items.get() + " reg)";
+        }
+    }
+
+    public MetricsClient(IControlIdClient delegate) {
+        this.delegate = delegate;
+        this.name = delegate.getClass().getSimpleName();
+    }
+
+    /* ======================== Login ======================== */
+
+    public boolean login(String user, String pass) {
+        long t0 = System.nanoTime();
+        boolean ok = false;
+        try {
+            ok = delegate.login(user, pass);
+            return ok;
+        } finally {
+            login.record(t0, 0, ok);
+        }
+    }
+
+    /* ======================== Users ======================== */
+
+    public Map<Long, String> fetchUsersMap() {
+        long t0 = System.nanoTime();
+        Map<Long, String> out = null;
+        try {
+            out = delegate.fetchUsersMap();
+            return out;
+        } finally {
+            int n = (out == null) ? 0 : out.size();
+            users.record(t0, n, out != null);
+            System.out.println("[metrics] " + name + ".fetchUsersMap: " + n + " usuarios en " + ms(t0) + " ms");
+        }
+    }
+
+    @Override
+    public String usersFingerprint() {
+        return delegate.usersFingerprint();
+    }
+
+    /* ======================== Access Logs ======================== */
+
+    public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
+        long t0 = System.nanoTime();
+        List<Fichada> out = null;
+        try {
+            out = delegate.fetchAccessLogs(from, to);
+            return out;
+        } finally {
+            int n = (out == null) ? 0 : out.size();
+            long calls = logs.record(t0, n, out != null);
+            System.out.println("[metrics] " + name + ".fetchAccessLogs " + from + ".." + to + ": "
+                    + (out == null ? "ERROR" : n + " fichadas") + " en " + ms(t0) + " ms");
+            if (calls % SUMMARY_EVERY == 0) System.out.println("[metrics] " + summary());
+        }
+    }
+
+    @Override
+    public FichadaBatch fetchAccessLogBatch(LocalDate from, LocalDate to) throws Exception {
+        long t0 = System.nanoTime();
+        FichadaBatch out = null;
+        try {
+            out = delegate.fetchAccessLogBatch(from, to);
+            return out;
+        } finally {
+            int n = (out == null) ? 0 : out.size();
+            long calls = logs.record(t0, n, out != null);
+            System.out.println("[metrics] " + name + ".fetchAccessLogBatch " + from + ".." + to + ": "
+                    + (out == null ? "ERROR" : n + " fichadas") + " en " + ms(t0) + " ms");
+            if (calls % SUMMARY_EVERY == 0) System.out.println("[metrics] " + summary());
+        }
+    }
+
+    @Override
+    public List<Fichada> fetchAccessLogsAfter(long afterId) throws Exception {
+        long t0 = System.nanoTime();
+        List<Fichada> out = null;
+        try {
+            out = delegate.fetchAccessLogsAfter(afterId);
+            return out;
+        } finally {
+            logsAfter.record(t0, (out == null) ? 0 : out.size(), out != null);
+        }
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return delegate.supportsIncremental();
+    }
+
+    @Override
+    public long lastAccessLogId() throws Exception {
+        return delegate.lastAccessLogId();
+    }
+
+    /* ======================== Resumen ======================== */
+
+    /** Acumulados de todas las operaciones desde que se creó el cliente. */
+    public String summary() {
+        return name + ": " + login + ", " + users + ", " + logs + ", " + logsAfter;
+    }
+
+    private static long ms(long t0) {
+        return (System.nanoTime() - t0) / 1_000_000;
+    }
+}
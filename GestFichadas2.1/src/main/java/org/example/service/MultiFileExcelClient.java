@@ -0,0 +1,185 @@
+package org.example.service;
+
+import org.example.Fichada;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Fuente de fichadas armada con varios Excel de una carpeta (por ej. exportaciones del reloj "*.xlsx"):
+ * - En cada pedido se vuelve a listar la carpeta (aparecen exportaciones nuevas).
+ * - Cada archivo se lee en su propia tarea, con su ControlIdClientExcel (cache + índice por archivo),
+ *   así que el total tarda más o menos lo que el archivo más grande.
+ * - Las fichadas de todos se unen con merge al orden usuario/fecha-hora y se eliminan
+ *   repetidas por Fichada.id (archivos con períodos superpuestos).
+ * - Archivos sin el formato de fichadas crudas (hoja "fichadas" con encabezado ID) se saltean:
+ *   por ej. los reportes exportados desde la app (Fecha/Usuario/Turno...).
+ *
+ * Usuarios: unión de las hojas "usuarios" de los archivos (gana el primero en orden de nombre).
+ */
+public class MultiFileExcelClient implements IControlIdClient {
+
+    private final Path dir;
+    private final PathMatcher matcher;
+    private final String glob;
+
+    /** Un cliente por archivo: conserva su cache en memoria entre pedidos. */
+    private final Map<Path, ControlIdClientExcel> clients = new ConcurrentHashMap<>();
+    /** Resultado del chequeo de formato por archivo, válido mientras no cambie (fecha:tamaño). */
+    private record Layout(String stamp, boolean punches) {}
+    private final Map<Path, Layout> layouts = new ConcurrentHashMap<>();
+
+    public MultiFileExcelClient(Path dir, String glob) {
+        this.dir = dir;
+        this.glob = glob;
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    }
+
+    /**
+     * "carpeta" (toma *.xlsx) o "carpeta/patrón" con comodines, por ej. "exports/reloj_*.xlsx".
+     */
+    public static MultiFileExcelClient of(String dirOrGlob) {
+        Path p = Path.of(dirOrGlob);
+        if (Files.isDirectory(p)) return new MultiFileExcelClient(p, "*.xlsx");
+        Path parent = p.toAbsolutePath().getParent();
+        return new MultiFileExcelClient(parent, p.getFileName().toString());
+    }
+
+    /* ======================== Login ======================== */
+
+    public boolean login(String user, String pass) {
+        System.out.println("=== MultiFileExcelClient.login() " + dir.toAbsolutePath() + "/" + glob + " ===");
+        List<Path> files = punchFiles();
+        System.out.println(files.isEmpty()
+                ? "❌ Ningún Excel de fichadas en la carpeta"
+                : "✅ Login exitoso - " + files.size() + " archivos de fichadas");
+        return !files.isEmpty();
+    }
+
+    /* ======================== Users ======================== */
+
+    public Map<Long, String> fetchUsersMap() {
+        List<Path> files = punchFiles();
+        Map<Long, String> out = new HashMap<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Map<Long, String>>> results = new ArrayList<>();
+            for (Path f : files) {
+                results.add(pool.submit(() -> clientFor(f).fetchUsersMap()));
+            }
+            for (Future<Map<Long, String>> r : results) {
+                try {
+                    Futures.await(r).forEach(out::putIfAbsent);
+                } catch (Exception e) {
+                    System.out.println("[files] fetchUsersMap WARNING: " + e.getMessage());
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Huella: nombre, fecha y tamaño de cada archivo de la carpeta que coincide con el patrón. */
+    @Override
+    public String usersFingerprint() {
+        StringBuilder sb = new StringBuilder();
+        for (Path f : listFiles()) {
+            try {
+                sb.append(f.getFileName()).append(':')
+                        .append(Files.getLastModifiedTime(f).toMillis()).append(':')
+                        .append(Files.size(f)).append('|');
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return sb.toString();
+    }
+
+    /* ======================== Access Logs ======================== */
+
+    public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
+        List<Path> files = punchFiles();
+        if (files.isEmpty()) {
+            // sin esto el reporte sale vacío sin ninguna pista
+            throw new IllegalArgumentException("Ningún Excel de fichadas crudas en " + dir.toAbsolutePath()
+                    + " con el patrón " + glob);
+        }
+        long t0 = System.nanoTime();
+
+        List<List<Fichada>> perFile = new ArrayList<>(files.size());
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<Fichada>>> results = new ArrayList<>(files.size());
+            for (Path f : files) {
+                results.add(pool.submit(() -> clientFor(f).fetchAccessLogs(from, to)));
+            }
+            for (Future<List<Fichada>> r : results) {
+                perFile.add(Futures.await(r));
+            }
+        }
+
+        // Merge ordenado y sin repetidos (la misma fichada puede estar en varias exportaciones)
+        List<Fichada> merged = FichadaMerge.mergeSorted(perFile);
+        Set<Long> seen = new HashSet<>(merged.size() * 2);
+        List<Fichada> out = new ArrayList<>(merged.size());
+        for (Fichada f : merged) {
+            if (seen.add(f.id())) out.add(f);
+        }
+
+        System.out.println("[files] " + files.size() + " archivos, " + out.size() + " fichadas ("
+                + (merged.size() - out.size()) + " repetidas) en " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+        return out;
+    }
+
+    /* ======================== Archivos ======================== */
+
+    private ControlIdClientExcel clientFor(Path file) {
+        return clients.computeIfAbsent(file, f -> new ControlIdClientExcel(f.toString()));
+    }
+
+    /** Archivos que coinciden con el patrón, ordenados por nombre. */
+    private List<Path> listFiles() {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(Files::isRegularFile)
+                    .filter(p -> matcher.matches(p.getFileName()))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            System.out.println("[files] no se pudo listar " + dir + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /** Solo los que tienen formato de fichadas crudas; el chequeo se recuerda por fecha:tamaño. */
+    private List<Path> punchFiles() {
+        List<Path> files = listFiles();
+        clients.keySet().retainAll(files);
+        layouts.keySet().retainAll(files);
+
+        List<Path> out = new ArrayList<>();
+        for (Path f : files) {
+            String stamp;
+            try {
+                stamp = Files.getLastModifiedTime(f).toMillis() + ":" + Files.size(f);
+            } catch (IOException e) {
+                continue;
+            }
+            Layout l = layouts.get(f);
+            if (l == null || !l.stamp().equals(stamp)) {
+                l = new Layout(stamp, clientFor(f).hasPunchLayout());
+                layouts.put(f, l);
+                if (!l.punches()) System.out.println("[files] " + f.getFileName() + " no tiene formato de fichadas, se saltea");
+            }
+            if (l.punches()) out.add(f);
+        }
+        if (out.isEmpty() && !files.isEmpty()) {
+            System.out.println("[files] WARNING los " + files.size() + " archivos que coinciden con " + glob
+                    + " no tienen formato de fichadas (¿reportes exportados?)");
+        }
+        return out;
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.service;
+
+import org.example.Fichada;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cliente compuesto para varios lectores (uno por portón):
+ * - login en paralelo en todos; sigue con los que respondieron OK.
+ * - usuarios y fichadas se piden a todos a la vez (un lector lento no frena al resto).
+ * - las fichadas de cada lector (ya ordenadas) se unen con un merge k-way
+ *   al mismo orden usuario/fecha-hora que espera CalcRowService.
+ * - usuarios repetidos en varios lectores quedan una sola vez (gana el primer lector de la lista).
+ *
+ * Los ids de fichada son propios de cada lector, por eso no soporta fetchAccessLogsAfter:
+ * para sincronización incremental envolver cada lector con IncrementalSyncClient, y para
+ * el almacén local cada lector con su propio PunchStoreClient (así lo arma ClientFactory).
+ */
+public class MultiReaderClient implements IControlIdClient {
+
+    private final List<IControlIdClient> readers;
+    private volatile List<IControlIdClient> active;
+
+    public MultiReaderClient(List<? extends IControlIdClient> readers) {
+        if (readers == null || readers.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos un lector");
+        }
+        this.readers = List.copyOf(readers);
+        this.active = this.readers;
+    }
+
+    /* ======================== Login ======================== */
+
+    public boolean login(String user, String pass) {
+        List<IControlIdClient> ok = new ArrayList<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (IControlIdClient r : readers) {
+                results.add(pool.submit(() -> r.login(user, pass)));
+            }
+            for (int i = 0; i < readers.size(); i++) {
+                boolean logged;
+                try {
+                    logged = Futures.await(results.get(i));
+                } catch (Exception e) {
+                    logged = false;
+                }
+                if (logged) {
+                    ok.add(readers.get(i));
+                } else {
+                    System.out.println("[multi] WARNING login falló en lector #" + i
+                            + " (" + readers.get(i).getClass().getSimpleName() + ")");
+                }
+            }
+        }
+        active = List.copyOf(ok);
+        System.out.println("[multi] lectores activos: " + ok.size() + "/" + readers.size());
+        return !ok.isEmpty();
+    }
+
+    /* ======================== Users ======================== */
+
+    public Map<Long, String> fetchUsersMap() {
+        List<IControlIdClient> current = active;
+        Map<Long, String> out = new HashMap<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Map<Long, String>>> results = new ArrayList<>();
+            for (IControlIdClient r : current) {
+                results.add(pool.submit(r::fetchUsersMap));
+            }
+            for (Future<Map<Long, String>> f : results) {
+                try {
+                    Futures.await(f).forEach(out::putIfAbsent);
+                } catch (Exception e) {
+                    System.out.println("[multi] fetchUsersMap WARNING: " + e.getMessage());
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Huella compuesta: la de cada lector activo; null si alguno no la informa. */
+    @Override
+    public String usersFingerprint() {
+        StringJoiner joined = new StringJoiner("|");
+        for (IControlIdClient r : active) {
+            String fp = r.usersFingerprint();
+            if (fp == null) return null;
+            joined.add(fp);
+        }
+        return joined.toString();
+    }
+
+    /* ======================== Access Logs ======================== */
+
+    public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
+        List<IControlIdClient> current = active;
+        List<List<Fichada>> perReader = new ArrayList<>(current.size());
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<Fichada>>> results = new ArrayList<>();
+            for (IControlIdClient r : current) {
+                results.add(pool.submit(() -> r.fetchAccessLogs(from, to)));
+            }
+            for (Future<List<Fichada>> f : results) {
+                perReader.add(Futures.await(f));
+            }
+        }
+        return FichadaMerge.mergeSorted(perReader);
+    }
+}
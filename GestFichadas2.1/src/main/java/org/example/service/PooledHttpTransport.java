@@ -0,0 +1,44 @@
+package org.example.service;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Transporte sobre java.net.http.HttpClient:
+ * - Un único HttpClient compartido por todos los ControlIdClient (pool de conexiones keep-alive).
+ * - HTTP/1.1 explícito (el lector no habla HTTP/2).
+ * - Los requests pueden ejecutarse en paralelo desde varios hilos; las respuestas
+ *   se procesan en hilos virtuales.
+ */
+class PooledHttpTransport implements HttpTransport {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private static final HttpClient SHARED = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @Override
+    public <T> T post(String url, String json, String cookie, BodyReader<T> reader) throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8));
+        if (cookie != null) b.header("Cookie", cookie);
+
+        HttpResponse<InputStream> r = SHARED.send(b.build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream is = r.body()) {
+            return reader.read(r.statusCode(), is);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.example.service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Índice "sidecar" de un archivo de fichadas (Excel/CSV): para cada mes, en qué tramos
+ * del archivo están sus fichadas. Las posiciones son genéricas: filas para el Excel,
+ * offsets de bytes para el CSV; cada tramo es [start, end).
+ *
+ * - Se guarda junto al archivo fuente (`<archivo>.idx`) y vale mientras el fuente conserve
+ *   fecha de modificación y tamaño; si no coincide, load() devuelve null y se reconstruye.
+ * - Es un superconjunto: quien lo usa igual filtra por fecha las filas que decodifica.
+ * - Si un mes queda muy desparramado (archivo sin orden), sus tramos se colapsan en uno.
+ */
+final class PunchDateIndex {
+
+    static final String SUFFIX = ".idx";
+
+    private static final int FILE_MAGIC   = 0x46494458; // "FIDX"
+    private static final int FILE_VERSION = 1;
+    private static final int MAX_RUNS_PER_MONTH = 256;
+
+    private final long sourceLastModified;
+    private final long sourceLength;
+    /** Mes → tramos [s0, e0, s1, e1, ...] ordenados. */
+    private final SortedMap<YearMonth, long[]> runs;
+
+    private PunchDateIndex(long sourceLastModified, long sourceLength, SortedMap<YearMonth, long[]> runs) {
+        this.sourceLastModified = sourceLastModified;
+        this.sourceLength = sourceLength;
+        this.runs = runs;
+    }
+
+    static Path sidecarOf(Path source) {
+        return source.resolveSibling(source.getFileName() + SUFFIX);
+    }
+
+    /** Meses con al menos una fichada. */
+    Set<YearMonth> months() {
+        return Collections.unmodifiableSet(runs.keySet());
+    }
+
+    /** Unión ordenada de los tramos de esos meses (meses sin datos no aportan nada). */
+    long[] runsFor(Collection<YearMonth> months) {
+        List<long[]> spans = new ArrayList<>();
+        for (YearMonth m : months) {
+            long[] r = runs.get(m);
+            if (r == null) continue;
+            for (int i = 0; i < r.length; i += 2) spans.add(new long[]{r[i], r[i + 1]});
+        }
+        spans.sort(Comparator.comparingLong(a -> a[0]));
+
+        long[] out = new long[spans.size() * 2];
+        int n = 0;
+        for (long[] s : spans) {
+            if (n > 0 && s[0] <= out[n - 1]) {
+                out[n - 1] = Math.max(out[n - 1], s[1]);
+            } else {
+                out[n++] = s[0];
+                out[n++] = s[1];
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /* ======================== Construcción ======================== */
+
+    static final class Builder {
+        private final SortedMap<YearMonth, long[]> runs = new TreeMap<>();
+        private final Map<YearMonth, Integer> used = new HashMap<>();
+
+        /** Registra que [start, end) contiene una fichada del día dado. */
+        void add(LocalDate day, long start, long end) {
+            add(YearMonth.from(day), start, end);
+        }
+
+        /** Registra que [start, end) contiene fichadas del mes dado. */
+        void add(YearMonth m, long start, long end) {
+            long[] r = runs.get(m);
+            int n = used.getOrDefault(m, 0);
+
+            if (r == null) {
+                r = new long[8];
+                runs.put(m, r);
+            } else if (start == r[n - 1]) {
+                r[n - 1] = end; // tramo contiguo: se extiende
+                return;
+            } else if (n / 2 >= MAX_RUNS_PER_MONTH) {
+                // demasiado desparramado: un solo tramo [min, max)
+                long min = start, max = end;
+                for (int i = 0; i < n; i += 2) {
+                    min = Math.min(min, r[i]);
+                    max = Math.max(max, r[i + 1]);
+                }
+                r[0] = min;
+                r[1] = max;
+                used.put(m, 2);
+                return;
+            } else if (n == r.length) {
+                r = Arrays.copyOf(r, r.length * 2);
+                runs.put(m, r);
+            }
+            r[n] = start;
+            r[n + 1] = end;
+            used.put(m, n + 2);
+        }
+
+        PunchDateIndex build(long sourceLastModified, long sourceLength) {
+            SortedMap<YearMonth, long[]> out = new TreeMap<>();
+            for (var e : runs.entrySet()) {
+                long[] r = Arrays.copyOf(e.getValue(), used.get(e.getKey()));
+                out.put(e.getKey(), normalize(r));
+            }
+            return new PunchDateIndex(sourceLastModified, sourceLength, out);
+        }
+
+        /** Ordena y une tramos superpuestos (los archivos sin orden los dejan mezclados). */
+        private static long[] normalize(long[] r) {
+            long[][] spans = new long[r.length / 2][];
+            for (int i = 0; i < spans.length; i++) spans[i] = new long[]{r[2 * i], r[2 * i + 1]};
+            Arrays.sort(spans, Comparator.comparingLong(a -> a[0]));
+            long[] out = new long[r.length];
+            int n = 0;
+            for (long[] s : spans) {
+                if (n > 0 && s[0] <= out[n - 1]) {
+                    out[n - 1] = Math.max(out[n - 1], s[1]);
+                } else {
+                    out[n++] = s[0];
+                    out[n++] = s[1];
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+    }
+
+    /* ======================== Disco ======================== */
+
+    /** Índice del archivo fuente, o null si no existe, está corrupto o el fuente cambió. */
+    static PunchDateIndex load(Path source) {
+        Path file = sidecarOf(source);
+        if (!Files.isRegularFile(file)) return null;
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) return null;
+
+            long lastModified = in.readLong();
+            long length       = in.readLong();
+            if (lastModified != Files.getLastModifiedTime(source).toMillis() || length != Files.size(source)) {
+                System.out.println("[index] " + file.getFileName() + " desactualizado, se reconstruye");
+                return null;
+            }
+
+            int months = in.readInt();
+            SortedMap<YearMonth, long[]> runs = new TreeMap<>();
+            for (int i = 0; i < months; i++) {
+                YearMonth m = YearMonth.of(in.readInt(), in.readInt());
+                long[] r = new long[in.readInt() * 2];
+                for (int j = 0; j < r.length; j++) r[j] = in.readLong();
+                runs.put(m, r);
+            }
+            return new PunchDateIndex(lastModified, length, runs);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("[index] no se pudo leer " + file + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    /** Escritura atómica: archivo temporal + move. Si no se puede escribir, solo avisa. */
+    void save(Path source) {
+        Path file = sidecarOf(source);
+        try {
+            Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeLong(sourceLastModified);
+                out.writeLong(sourceLength);
+                out.writeInt(runs.size());
+                for (var e : runs.entrySet()) {
+                    out.writeInt(e.getKey().getYear());
+                    out.writeInt(e.getKey().getMonthValue());
+                    out.writeInt(e.getValue().length / 2);
+                    for (long v : e.getValue()) out.writeLong(v);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("[index] guardado " + file.getFileName() + ": " + runs.size() + " meses");
+        } catch (IOException e) {
+            System.out.println("[index] WARNING no se pudo guardar " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package org.example.service;
+
+import org.example.Fichada;
+import org.example.FichadaBatch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Almacén local de fichadas en disco, un par de archivos por mes:
+ * - "YYYY-MM.log": registros agregados al final (append-only), sin orden.
+ * - "YYYY-MM.seg": segmento compactado, registros ordenados por usuario/fecha-hora
+ *   + footer con índice por usuario (usuario → primer registro, cantidad) + trailer.
+ *
+ * Registro fijo de 24 bytes: segundos epoch (hora local tomada como UTC), userId
+ * (NONE si no tiene) e id de la fichada. La compactación une segmento + log, elimina
+ * repetidos por id y reescribe el segmento de forma atómica.
+ *
+ * Las lecturas mapean en memoria solo los meses pedidos y, dentro de cada usuario,
+ * buscan el rango de fechas por búsqueda binaria (no se parsea nada).
+ * No es thread-safe: lo usa PunchStoreClient bajo su lock.
+ */
+final class PunchStore {
+
+    static final int RECORD_BYTES = 24;
+
+    private static final int FILE_MAGIC   = 0x46534547; // "FSEG"
+    private static final int FILE_VERSION = 1;
+    private static final int TRAILER_BYTES = 24;       // magic, version, registros, usuarios, flags
+    private static final int USER_ENTRY_BYTES = 16;    // userId, primer registro, cantidad
+    private static final int FLAG_COMPLETE = 1;
+    private static final long NONE = Long.MIN_VALUE;
+
+    /** Con más registros que esto en el log, append() compacta el mes. */
+    private static final int COMPACT_THRESHOLD = 65_536;
+
+    private final Path dir;
+
+    PunchStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+    }
+
+    /* ======================== Escritura ======================== */
+
+    /** Agrega las fichadas al log de su mes (no verifica repetidos: los elimina la compactación). */
+    void append(Collection<Fichada> logs) throws IOException {
+        Map<YearMonth, List<Fichada>> byMonth = new TreeMap<>();
+        for (Fichada f : logs) {
+            byMonth.computeIfAbsent(YearMonth.from(f.dateTime()), m -> new ArrayList<>()).add(f);
+        }
+
+        for (var e : byMonth.entrySet()) {
+            ByteBuffer buf = ByteBuffer.allocate(e.getValue().size() * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (Fichada f : e.getValue()) putRecord(buf, f);
+            buf.flip();
+
+            Path log = logFile(e.getKey());
+            long logRecords;
+            try (FileChannel ch = FileChannel.open(log, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (buf.hasRemaining()) ch.write(buf);
+                logRecords = ch.size() / RECORD_BYTES;
+            }
+            // con el log ya cerrado (la compactación lo borra)
+            if (logRecords > COMPACT_THRESHOLD) {
+                compact(e.getKey(), isComplete(e.getKey()));
+            }
+        }
+    }
+
+    /** Marca el mes como completo (ya no hace falta pedirlo a la fuente); compacta de paso. */
+    void markComplete(YearMonth m) throws IOException {
+        compact(m, true);
+    }
+
+    /** Une segmento + log del mes en un segmento nuevo ordenado, sin repetidos. */
+    void compact(YearMonth m, boolean complete) throws IOException {
+        Map<Long, long[]> byId = new HashMap<>();
+        for (long[] r : records(segFile(m), true)) byId.put(r[2], r);
+        for (long[] r : records(logFile(m), false)) byId.put(r[2], r);
+
+        long[][] sorted = byId.values().toArray(new long[0][]);
+        Arrays.sort(sorted, RECORD_ORDER);
+        if (!writeSegment(m, sorted, complete)) return; // el log sigue teniendo los datos
+        Files.deleteIfExists(logFile(m));
+        System.out.println("[store] " + m + " compactado: " + sorted.length + " fichadas"
+                + (complete ? " (completo)" : ""));
+    }
+
+    /* ======================== Lectura ======================== */
+
+    /** Meses con datos en el almacén (segmento o log). */
+    SortedSet<YearMonth> months() throws IOException {
+        SortedSet<YearMonth> out = new TreeSet<>();
+        try (var s = Files.list(dir)) {
+            s.forEach(p -> {
+                String name = p.getFileName().toString();
+                if (name.endsWith(".seg") || name.endsWith(".log")) {
+                    try {
+                        out.add(YearMonth.parse(name.substring(0, name.length() - 4)));
+                    } catch (RuntimeException ignored) {
+                        // archivo ajeno
+                    }
+                }
+            });
+        }
+        return out;
+    }
+
+    boolean isComplete(YearMonth m) throws IOException {
+        Path seg = segFile(m);
+        if (!Files.isRegularFile(seg)) return false;
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.READ)) {
+            ByteBuffer t = trailer(ch, seg);
+            return t != null && (t.getInt(20) & FLAG_COMPLETE) != 0;
+        }
+    }
+
+    /**
+     * Fichadas del mes con fecha en [from, to], en orden usuario/fecha-hora, directo a columnas.
+     * Si el log tiene registros, se unen con el segmento y se eliminan repetidos por id.
+     */
+    FichadaBatch read(YearMonth m, LocalDate from, LocalDate to) throws IOException {
+        long lo = FichadaBatch.toEpochSecond(from);
+        long hi = FichadaBatch.toEpochSecond(to.plusDays(1)); // exclusivo
+
+        Path log = logFile(m);
+        if (!Files.isRegularFile(log) || Files.size(log) < RECORD_BYTES) {
+            // Caso normal: el segmento ya está en el orden del lote
+            FichadaBatch.Builder b = new FichadaBatch.Builder();
+            readSegment(segFile(m), lo, hi, (sec, uid, id) -> b.add(id, sec, uid));
+            return b.build();
+        }
+
+        Map<Long, long[]> byId = new HashMap<>();
+        readSegment(segFile(m), lo, hi, (sec, uid, id) -> byId.put(id, new long[]{sec, uid, id}));
+        for (long[] r : records(log, false)) {
+            if (r[0] >= lo && r[0] < hi) byId.put(r[2], r);
+        }
+        long[][] sorted = byId.values().toArray(new long[0][]);
+        Arrays.sort(sorted, RECORD_ORDER);
+        FichadaBatch.Builder b = new FichadaBatch.Builder(sorted.length);
+        for (long[] r : sorted) b.add(r[2], r[0], r[1]);
+        return b.build();
+    }
+
+    /** Destino de los registros leídos de un segmento. */
+    private interface RecordSink {
+        void accept(long sec, long userId, long id);
+    }
+
+    /** Segmento mapeado: por cada usuario del footer, búsqueda binaria del primer registro >= lo. */
+    private void readSegment(Path seg, long lo, long hi, RecordSink out) throws IOException {
+        if (!Files.isRegularFile(seg)) return;
+        try (FileChannel ch = FileChannel.open(seg, StandardOpenOption.READ)) {
+            ByteBuffer t = trailer(ch, seg);
+            if (t == null) return;
+            long records = t.getLong(8);
+            int users = t.getInt(16);
+
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            long footer = records * RECORD_BYTES;
+
+            for (int u = 0; u < users; u++) {
+                int e = (int) (footer + (long) u * USER_ENTRY_BYTES);
+                int first = map.getInt(e + 8);
+                int count = map.getInt(e + 12);
+
+                // primer registro del usuario con tiempo >= lo
+                int a = first, b = first + count;
+                while (a < b) {
+                    int mid = (a + b) >>> 1;
+                    if (map.getLong(mid * RECORD_BYTES) < lo) a = mid + 1; else b = mid;
+                }
+                for (int i = a; i < first + count; i++) {
+                    int p = i * RECORD_BYTES;
+                    long sec = map.getLong(p);
+                    if (sec >= hi) break;
+                    out.accept(sec, map.getLong(p + 8), map.getLong(p + 16));
+                }
+            }
+        }
+    }
+
+    /* ======================== Formato ======================== */
+
+    /** Orden de registros: usuario (NONE al final), fecha-hora, id. */
+    private static final Comparator<long[]> RECORD_ORDER = (x, y) -> {
+        if (x[1] != y[1]) {
+            if (x[1] == NONE) return 1;
+            if (y[1] == NONE) return -1;
+            return Long.compare(x[1], y[1]);
+        }
+        int c = Long.compare(x[0], y[0]);
+        return c != 0 ? c : Long.compare(x[2], y[2]);
+    };
+
+    /**
+     * Escritura atómica (temporal + move). Devuelve false si no se pudo reemplazar el segmento
+     * (en Windows falla mientras un mapeo anterior siga vivo): se reintenta en la próxima compactación.
+     */
+    private boolean writeSegment(YearMonth m, long[][] sorted, boolean complete) throws IOException {
+        // footer: un tramo por usuario (los sin usuario van juntos al final como NONE)
+        List<long[]> users = new ArrayList<>();
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i][1] != sorted[i - 1][1]) users.add(new long[]{sorted[i][1], i, 0});
+            users.get(users.size() - 1)[2]++;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(sorted.length * RECORD_BYTES
+                + users.size() * USER_ENTRY_BYTES + TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (long[] r : sorted) {
+            buf.putLong(r[0]).putLong(r[1]).putLong(r[2]);
+        }
+        for (long[] u : users) {
+            buf.putLong(u[0]).putInt((int) u[1]).putInt((int) u[2]);
+        }
+        buf.putInt(FILE_MAGIC).putInt(FILE_VERSION).putLong(sorted.length)
+                .putInt(users.size()).putInt(complete ? FLAG_COMPLETE : 0);
+        buf.flip();
+
+        Path seg = segFile(m);
+        Path tmp = Files.createTempFile(dir, seg.getFileName().toString(), ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        try {
+            Files.move(tmp, seg, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            System.out.println("[store] WARNING no se pudo reemplazar " + seg + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Trailer validado (magic/versión/tamaño), o null si el segmento no es válido. */
+    private static ByteBuffer trailer(FileChannel ch, Path seg) throws IOException {
+        long size = ch.size();
+        if (size < TRAILER_BYTES) return null;
+        ByteBuffer t = ByteBuffer.allocate(TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        ch.read(t, size - TRAILER_BYTES);
+        if (t.getInt(0) != FILE_MAGIC || t.getInt(4) != FILE_VERSION
+                || t.getLong(8) * RECORD_BYTES + (long) t.getInt(16) * USER_ENTRY_BYTES + TRAILER_BYTES != size) {
+            System.out.println("[store] WARNING segmento inválido, se ignora: " + seg);
+            return null;
+        }
+        return t;
+    }
+
+    /**
+     * Registros {sec, userId, id} de un segmento o de un log (un registro final incompleto se descarta).
+     * Lectura común, sin mapear: estos archivos se reemplazan/borran enseguida al compactar.
+     */
+    private static List<long[]> records(Path file, boolean segment) throws IOException {
+        if (!Files.isRegularFile(file)) return List.of();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long n;
+            if (segment) {
+                ByteBuffer t = trailer(ch, file);
+                if (t == null) return List.of();
+                n = t.getLong(8);
+            } else {
+                n = ch.size() / RECORD_BYTES;
+            }
+            if (n == 0) return List.of();
+
+            ByteBuffer buf = ByteBuffer.allocate((int) (n * RECORD_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+            while (buf.hasRemaining() && ch.read(buf, buf.position()) > 0) {
+                // read posicional hasta llenar
+            }
+            List<long[]> out = new ArrayList<>((int) n);
+            for (int i = 0; i < n; i++) {
+                int p = i * RECORD_BYTES;
+                out.add(new long[]{buf.getLong(p), buf.getLong(p + 8), buf.getLong(p + 16)});
+            }
+            return out;
+        }
+    }
+
+    private static void putRecord(ByteBuffer buf, Fichada f) {
+        buf.putLong(f.dateTime().toEpochSecond(ZoneOffset.UTC));
+        buf.putLong(f.userId() == null ? NONE : f.userId());
+        buf.putLong(f.id());
+    }
+
+    private Path segFile(YearMonth m) {
+        return dir.resolve(m + ".seg");
+    }
+
+    private Path logFile(YearMonth m) {
+        return dir.resolve(m + ".log");
+    }
+}
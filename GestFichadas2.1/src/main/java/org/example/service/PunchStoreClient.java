@@ -0,0 +1,163 @@
+package org.example.service;
+
+import org.example.Fichada;
+import org.example.FichadaBatch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorador de IControlIdClient que guarda las fichadas en un PunchStore local:
+ * - Los meses cerrados que ya se trajeron completos se leen solo del disco
+ *   (reprocesar el año pasado no necesita al lector online).
+ * - Lo demás (mes en curso, meses nunca pedidos) se pide a la fuente por tramos
+ *   contiguos, se agrega al almacén y se sirve desde ahí.
+ * - Si la fuente falla y el almacén tiene algo del rango, se sirve lo local con aviso.
+ *
+ * El almacén identifica las fichadas por id, así que la fuente tiene que ser UNA sola numeración
+ * (un lector, o archivos de un mismo lector). Con varios lectores va un PunchStoreClient por
+ * lector, debajo de MultiReaderClient: así tampoco se marca completo un mes al que le faltó
+ * algún lector.
+ */
+public class PunchStoreClient implements IControlIdClient {
+
+    private final IControlIdClient delegate;
+    private final PunchStore store;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public PunchStoreClient(IControlIdClient delegate, Path dir) throws IOException {
+        this.delegate = delegate;
+        this.store = new PunchStore(dir);
+    }
+
+    /* ======================== Login / Users ======================== */
+
+    /** Con la fuente caída igual se puede trabajar offline si el almacén tiene datos. */
+    public boolean login(String user, String pass) {
+        if (delegate.login(user, pass)) return true;
+        try {
+            if (!store.months().isEmpty()) {
+                System.out.println("[store] login falló en la fuente, se trabaja offline con el almacén");
+                return true;
+            }
+        } catch (IOException e) {
+            System.out.println("[store] WARNING " + e.getMessage());
+        }
+        return false;
+    }
+
+    public Map<Long, String> fetchUsersMap() {
+        return delegate.fetchUsersMap();
+    }
+
+    @Override
+    public String usersFingerprint() {
+        return delegate.usersFingerprint();
+    }
+
+    @Override
+    public List<Fichada> fetchAccessLogsAfter(long afterId) throws Exception {
+        return delegate.fetchAccessLogsAfter(afterId);
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return delegate.supportsIncremental();
+    }
+
+    @Override
+    public long lastAccessLogId() throws Exception {
+        return delegate.lastAccessLogId();
+    }
+
+    /* ======================== Access Logs ======================== */
+
+    public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
+        return fetchAccessLogBatch(from, to).toList();
+    }
+
+    /** Los segmentos se leen directo a columnas: no se crea ninguna Fichada. */
+    @Override
+    public FichadaBatch fetchAccessLogBatch(LocalDate from, LocalDate to) throws Exception {
+        lock.lock();
+        try {
+            long t0 = System.nanoTime();
+            syncMissing(from, to);
+
+            List<FichadaBatch> perMonth = new ArrayList<>();
+            for (YearMonth m = YearMonth.from(from); !m.isAfter(YearMonth.from(to)); m = m.plusMonths(1)) {
+                LocalDate a = max(from, m.atDay(1));
+                LocalDate b = min(to, m.atEndOfMonth());
+                perMonth.add(store.read(m, a, b));
+            }
+            FichadaBatch out = perMonth.size() == 1 ? perMonth.get(0)
+                    : FichadaBatch.concat(perMonth, Long.MIN_VALUE, Long.MAX_VALUE);
+            System.out.println("[store] " + from + ".." + to + ": " + out.size() + " fichadas en "
+                    + (System.nanoTime() - t0) / 1_000_000 + " ms");
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Pide a la fuente los meses no completos del rango (agrupados en tramos contiguos). */
+    private void syncMissing(LocalDate from, LocalDate to) throws Exception {
+        YearMonth current = YearMonth.now();
+        List<LocalDate[]> spans = new ArrayList<>();
+        for (YearMonth m = YearMonth.from(from); !m.isAfter(YearMonth.from(to)); m = m.plusMonths(1)) {
+            if (store.isComplete(m)) continue;
+            LocalDate a = max(from, m.atDay(1));
+            LocalDate b = min(to, m.atEndOfMonth());
+            LocalDate[] last = spans.isEmpty() ? null : spans.get(spans.size() - 1);
+            if (last != null && last[1].plusDays(1).equals(a)) last[1] = b;
+            else spans.add(new LocalDate[]{a, b});
+        }
+
+        for (LocalDate[] s : spans) {
+            List<Fichada> fetched;
+            try {
+                fetched = delegate.fetchAccessLogs(s[0], s[1]);
+            } catch (Exception e) {
+                if (store.months().isEmpty()) throw e;
+                System.out.println("[store] WARNING la fuente falló (" + e.getMessage()
+                        + "), se usa lo guardado para " + s[0] + ".." + s[1]);
+                continue;
+            }
+
+            store.append(onlyNew(fetched, s[0], s[1]));
+
+            // Meses cerrados traídos enteros: ya no se vuelven a pedir
+            for (YearMonth m = YearMonth.from(s[0]); !m.isAfter(YearMonth.from(s[1])); m = m.plusMonths(1)) {
+                boolean whole = !s[0].isAfter(m.atDay(1)) && !s[1].isBefore(m.atEndOfMonth());
+                if (whole && m.isBefore(current)) store.markComplete(m);
+            }
+        }
+    }
+
+    /** Descarta las que el almacén ya tiene (el mes en curso se vuelve a pedir en cada consulta). */
+    private List<Fichada> onlyNew(List<Fichada> fetched, LocalDate from, LocalDate to) throws IOException {
+        Set<Long> known = new HashSet<>();
+        for (YearMonth m = YearMonth.from(from); !m.isAfter(YearMonth.from(to)); m = m.plusMonths(1)) {
+            FichadaBatch b = store.read(m, max(from, m.atDay(1)), min(to, m.atEndOfMonth()));
+            for (int i = 0; i < b.size(); i++) known.add(b.id(i));
+        }
+        if (known.isEmpty()) return fetched;
+        List<Fichada> out = new ArrayList<>();
+        for (Fichada f : fetched) {
+            if (!known.contains(f.id())) out.add(f);
+        }
+        return out;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,150 @@
+package org.example.service;
+
+import org.example.Fichada;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parte un rango de fechas en tramos (slices) de N días y los pide en paralelo:
+ * - Hasta `parallelism` tramos en vuelo a la vez; cada worker toma el siguiente tramo libre.
+ * - Con adaptive=true el tamaño se ajusta según la latencia observada: si un tramo tarda
+ *   más que TARGET_SLICE_MILLIS se achica a la mitad, si tarda menos de un cuarto se duplica.
+ * - Si un tramo de más de un día da timeout, se parte en dos y se reintenta.
+ * - Los resultados (cada uno ordenado) se unen con FichadaMerge en el orden usuario/fecha-hora.
+ */
+final class TimeSlicer {
+
+    static final int MIN_SLICE_DAYS = 1;
+    static final int MAX_SLICE_DAYS = 31;
+
+    /** Latencia objetivo por tramo: bastante por debajo del read timeout (60 s). */
+    private static final long TARGET_SLICE_MILLIS = 10_000;
+
+    @FunctionalInterface
+    interface SliceFetch {
+        /** Fichadas del tramo [from, to], ordenadas con Fichada.BY_USER_AND_TIME. */
+        List<Fichada> fetch(LocalDate from, LocalDate to) throws Exception;
+    }
+
+    private record Slice(LocalDate from, LocalDate to) {
+        long days() {
+            return ChronoUnit.DAYS.between(from, to) + 1;
+        }
+    }
+
+    private final int parallelism;
+    private final boolean adaptive;
+    private volatile int sliceDays;
+
+    TimeSlicer(int sliceDays, int parallelism, boolean adaptive) {
+        this.sliceDays = clamp(sliceDays);
+        this.parallelism = Math.max(1, parallelism);
+        this.adaptive = adaptive;
+    }
+
+    int sliceDays() {
+        return sliceDays;
+    }
+
+    List<Fichada> fetch(LocalDate from, LocalDate to, SliceFetch fetch) throws Exception {
+        if (from.isAfter(to)) return new ArrayList<>();
+
+        Run run = new Run(from, to, fetch);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Void>> workers = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(pool.submit(() -> {
+                    run.work();
+                    return null;
+                }));
+            }
+            for (Future<Void> w : workers) {
+                Futures.await(w);
+            }
+        }
+        return FichadaMerge.mergeSorted(run.results);
+    }
+
+    /** Estado de una llamada a fetch (compartido entre los workers). */
+    private final class Run {
+        private final LocalDate to;
+        private final SliceFetch fetch;
+        private final Deque<Slice> retries = new ArrayDeque<>();
+        private final List<List<Fichada>> results = Collections.synchronizedList(new ArrayList<>());
+        private LocalDate next;
+        private volatile boolean failed;
+
+        Run(LocalDate from, LocalDate to, SliceFetch fetch) {
+            this.next = from;
+            this.to = to;
+            this.fetch = fetch;
+        }
+
+        void work() throws Exception {
+            Slice s;
+            while (!failed && (s = nextSlice()) != null) {
+                long t0 = System.nanoTime();
+                try {
+                    results.add(fetch.fetch(s.from(), s.to()));
+                } catch (Exception e) {
+                    if (isTimeout(e) && s.days() > 1) {
+                        splitAndRetry(s);
+                        continue;
+                    }
+                    failed = true;
+                    throw e;
+                }
+                adapt((System.nanoTime() - t0) / 1_000_000);
+            }
+        }
+
+        private synchronized Slice nextSlice() {
+            if (!retries.isEmpty()) return retries.poll();
+            if (next.isAfter(to)) return null;
+
+            LocalDate end = next.plusDays(sliceDays - 1L);
+            if (end.isAfter(to)) end = to;
+            Slice s = new Slice(next, end);
+            next = end.plusDays(1);
+            return s;
+        }
+
+        private synchronized void splitAndRetry(Slice s) {
+            long half = s.days() / 2;
+            LocalDate mid = s.from().plusDays(half - 1);
+            retries.add(new Slice(s.from(), mid));
+            retries.add(new Slice(mid.plusDays(1), s.to()));
+            sliceDays = clamp((int) half);
+            System.out.println("[slices] timeout en " + s.from() + ".." + s.to()
+                    + " → se parte en dos, tamaño=" + sliceDays + "d");
+        }
+    }
+
+    private void adapt(long elapsedMillis) {
+        if (!adaptive) return;
+        int current = sliceDays;
+        if (elapsedMillis > TARGET_SLICE_MILLIS) {
+            sliceDays = clamp(current / 2);
+        } else if (elapsedMillis < TARGET_SLICE_MILLIS / 4) {
+            sliceDays = clamp(current * 2);
+        }
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof HttpTimeoutException || t instanceof SocketTimeoutException) return true;
+        }
+        return false;
+    }
+
+    private static int clamp(int days) {
+        return Math.max(MIN_SLICE_DAYS, Math.min(MAX_SLICE_DAYS, days));
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.service;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parseo rápido de fechas "dd/MM/yyyy HH:mm:ss" (el formato de los Excel/CSV exportados):
+ * - Camino rápido de layout fijo (19 caracteres/bytes): sin DateTimeFormatter ni objetos intermedios.
+ * - Cualquier cosa fuera del caso simple (otro largo, 31/04, 24:00:00, basura...) cae en
+ *   LocalDateTime.parse con el formatter, así que el resultado y las excepciones son
+ *   exactamente los de antes.
+ * - Aritmética de calendario compartida con ControlIdClientCsv (días epoch sin LocalDate).
+ */
+final class Timestamps {
+
+    static final DateTimeFormatter DD_MM_YYYY_HH_MM_SS = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    /** Valor de retorno de los métodos fast* cuando el texto no es el layout fijo válido. */
+    static final long INVALID = Long.MIN_VALUE;
+
+    private static final int LENGTH = 19; // "dd/MM/yyyy HH:mm:ss"
+
+    private Timestamps() {}
+
+    /** "dd/MM/yyyy HH:mm:ss" → LocalDateTime; mismo resultado que LocalDateTime.parse(s, DD_MM_YYYY_HH_MM_SS). */
+    static LocalDateTime parse(String s) {
+        if (s.length() == LENGTH) {
+            int d  = two(s.charAt(0), s.charAt(1));
+            int mo = two(s.charAt(3), s.charAt(4));
+            int y  = four(s.charAt(6), s.charAt(7), s.charAt(8), s.charAt(9));
+            int h  = two(s.charAt(11), s.charAt(12));
+            int mi = two(s.charAt(14), s.charAt(15));
+            int se = two(s.charAt(17), s.charAt(18));
+            if (s.charAt(2) == '/' && s.charAt(5) == '/' && s.charAt(10) == ' '
+                    && s.charAt(13) == ':' && s.charAt(16) == ':'
+                    && valid(y, mo, d, h, mi, se)) {
+                return LocalDateTime.of(y, mo, d, h, mi, se);
+            }
+        }
+        return LocalDateTime.parse(s, DD_MM_YYYY_HH_MM_SS);
+    }
+
+    /**
+     * Bytes ASCII "dd/MM/yyyy HH:mm:ss" en b[off..off+19) (get absoluto, ej. un archivo mapeado)
+     * → segundos epoch (tomando la hora como UTC), o INVALID si no es exactamente ese layout
+     * con valores válidos.
+     */
+    static long fastEpochSeconds(ByteBuffer b, int off, int limit) {
+        if (limit - off < LENGTH) return INVALID;
+        int d  = two(b.get(off), b.get(off + 1));
+        int mo = two(b.get(off + 3), b.get(off + 4));
+        int y  = four(b.get(off + 6), b.get(off + 7), b.get(off + 8), b.get(off + 9));
+        int h  = two(b.get(off + 11), b.get(off + 12));
+        int mi = two(b.get(off + 14), b.get(off + 15));
+        int se = two(b.get(off + 17), b.get(off + 18));
+        if (b.get(off + 2) != '/' || b.get(off + 5) != '/' || b.get(off + 10) != ' '
+                || b.get(off + 13) != ':' || b.get(off + 16) != ':'
+                || !valid(y, mo, d, h, mi, se)) {
+            return INVALID;
+        }
+        return epochSeconds(y, mo, d, h, mi, se);
+    }
+
+    static long epochSeconds(long y, long mo, long d, long h, long mi, long s) {
+        return daysFromCivil(y, mo, d) * 86_400L + h * 3600 + mi * 60 + s;
+    }
+
+    /** Rangos válidos sin ajustes (año de era >= 1, día dentro del mes, hora 0-23). */
+    static boolean valid(long y, long mo, long d, long h, long mi, long s) {
+        return y >= 1 && mo >= 1 && mo <= 12 && d >= 1 && d <= lengthOfMonth(y, mo)
+                && h >= 0 && h <= 23 && mi >= 0 && mi <= 59 && s >= 0 && s <= 59;
+    }
+
+    static int lengthOfMonth(long year, long month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    /** Días desde 1970-01-01 para una fecha del calendario gregoriano (algoritmo de H. Hinnant). */
+    static long daysFromCivil(long y, long m, long d) {
+        y -= (m <= 2) ? 1 : 0;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097 + doe - 719_468;
+    }
+
+    /** Clave año*12+(mes-1) del día epoch dado (inverso de daysFromCivil, sin objetos). */
+    static int monthKeyOfDay(long epochDay) {
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long doe = z - era * 146_097;
+        long yoe = (doe - doe / 1460 + doe / 36_524 - doe / 146_096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    /* ---- dígitos: -1 si alguno no es dígito (y el valor queda fuera de rango) ---- */
+
+    private static int two(int a, int b) {
+        int x = a - '0', y = b - '0';
+        if ((x | y) < 0 || x > 9 || y > 9) return -1;
+        return x * 10 + y;
+    }
+
+    private static int four(int a, int b, int c, int d) {
+        int hi = two(a, b), lo = two(c, d);
+        return (hi < 0 || lo < 0) ? -1 : hi * 100 + lo;
+    }
+}
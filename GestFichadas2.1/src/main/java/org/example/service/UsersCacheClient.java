@@ -0,0 +1,101 @@
+package org.example.service;
+
+import org.example.Fichada;
+import org.example.FichadaBatch;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decorador de IControlIdClient que cachea el mapa de usuarios (id -> nombre):
+ * - Dentro del TTL se devuelve el mapa cacheado sin tocar el lector.
+ * - Vencido el TTL se pide usersFingerprint(); si no cambió, se renueva el TTL y listo.
+ * - Si cambió (o la fuente no da huella) se vuelve a traer el padrón completo.
+ * - Si el lector falla (fetchUsersMap vacío) se sigue usando el último mapa bueno.
+ */
+public class UsersCacheClient implements IControlIdClient {
+
+    private final IControlIdClient delegate;
+    private final long ttlNanos;
+
+    private Map<Long, String> cached;
+    private String cachedFingerprint;
+    private long loadedAt;
+
+    public UsersCacheClient(IControlIdClient delegate, Duration ttl) {
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /* ======================== Login ======================== */
+
+    public boolean login(String user, String pass) {
+        return delegate.login(user, pass);
+    }
+
+    /* ======================== Users ======================== */
+
+    public synchronized Map<Long, String> fetchUsersMap() {
+        long now = System.nanoTime();
+
+        if (cached != null && now - loadedAt < ttlNanos) {
+            return cached;
+        }
+
+        String fp = delegate.usersFingerprint();
+        if (cached != null && fp != null && fp.equals(cachedFingerprint)) {
+            System.out.println("[users-cache] sin cambios (" + fp + ")");
+            loadedAt = now;
+            return cached;
+        }
+
+        Map<Long, String> fresh = delegate.fetchUsersMap();
+        if (fresh == null || fresh.isEmpty()) {
+            if (cached != null) {
+                System.out.println("[users-cache] WARNING el lector no devolvió usuarios, uso la cache");
+                return cached;
+            }
+            return (fresh == null) ? Collections.emptyMap() : fresh;
+        }
+
+        cached = Collections.unmodifiableMap(fresh);
+        cachedFingerprint = fp;
+        loadedAt = now;
+        System.out.println("[users-cache] padrón recargado: " + fresh.size() + " usuarios");
+        return cached;
+    }
+
+    @Override
+    public String usersFingerprint() {
+        return delegate.usersFingerprint();
+    }
+
+    /* ======================== Access Logs ======================== */
+
+    public List<Fichada> fetchAccessLogs(LocalDate from, LocalDate to) throws Exception {
+        return delegate.fetchAccessLogs(from, to);
+    }
+
+    @Override
+    public FichadaBatch fetchAccessLogBatch(LocalDate from, LocalDate to) throws Exception {
+        return delegate.fetchAccessLogBatch(from, to);
+    }
+
+    @Override
+    public List<Fichada> fetchAccessLogsAfter(long afterId) throws Exception {
+        return delegate.fetchAccessLogsAfter(afterId);
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return delegate.supportsIncremental();
+    }
+
+    @Override
+    public long lastAccessLogId() throws Exception {
+        return delegate.lastAccessLogId();
+    }
+}
@@ -0,0 +1,315 @@
+package org.example.service;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lectura en streaming (SAX) de una hoja XLSX con la API de eventos de POI:
+ * - No arma el DOM del workbook: cada fila se parsea y se entrega al RowHandler al vuelo.
+ * - Shared strings en modo solo-lectura; estilos solo para detectar celdas con formato fecha.
+ * - Las celdas de la fila se reutilizan entre filas (memoria plana aunque la hoja sea enorme).
+ *
+ * Los tipos de celda replican lo que ve XSSFWorkbook (BLANK/NUMERIC/STRING/FORMULA/...)
+ * para que los conversores den el mismo resultado que el camino DOM.
+ */
+final class XlsxSheetStreamer {
+
+    enum Kind { BLANK, NUMERIC, STRING, FORMULA, BOOLEAN, ERROR }
+
+    /** Celda cruda: texto del valor (o del string) + tipo + si su estilo es de fecha. */
+    static final class RawCell {
+        Kind kind;
+        String text;
+        boolean dateFormatted;
+        boolean date1904;
+
+        /** Valor numérico (NUMERIC o FORMULA con resultado numérico); NaN si no aplica. */
+        double number() {
+            if (text == null || text.isEmpty()) return Double.NaN;
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        /** Igual que Cell.getDateCellValue (zona horaria del sistema, sistema 1900/1904 del libro). */
+        Date dateValue() {
+            return DateUtil.getJavaDate(number(), date1904);
+        }
+    }
+
+    @FunctionalInterface
+    interface RowHandler {
+        /** rowNum base 0; cells[i] == null si la columna i no tiene celda en la fila. */
+        void row(int rowNum, RawCell[] cells);
+    }
+
+    private XlsxSheetStreamer() {}
+
+    /**
+     * Recorre la hoja `sheetName` (sin distinguir mayúsculas, como Workbook.getSheet)
+     * entregando las primeras `maxCols` columnas de cada fila.
+     *
+     * @return false si la hoja no existe.
+     */
+    static boolean stream(File file, String sheetName, int maxCols, RowHandler handler) throws IOException {
+        return stream(file, sheetName, maxCols, null, handler);
+    }
+
+    /**
+     * Igual que stream(...) pero solo decodifica las filas dentro de `rows`
+     * (tramos [s0, e0, s1, e1, ...] ordenados, como los de PunchDateIndex; null = todas).
+     * El XML de las demás filas se recorre sin armar celdas, y el parseo se corta
+     * apenas se pasa el último tramo.
+     */
+    static boolean stream(File file, String sheetName, int maxCols, long[] rows, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904 = isDate1904(reader);
+
+            XSSFReader.SheetIterator it = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (it.hasNext()) {
+                try (InputStream sheet = it.next()) {
+                    if (!it.getSheetName().equalsIgnoreCase(sheetName)) continue;
+
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new SheetHandler(strings, styles, date1904, maxCols, rows, handler));
+                    try {
+                        parser.parse(new InputSource(sheet));
+                    } catch (StopParsing done) {
+                        // ya se leyeron todas las filas pedidas
+                    }
+                    return true;
+                }
+            }
+            return false;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("No se pudo leer " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** Lee workbookPr/@date1904 de workbook.xml (archivo chico). */
+    private static boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException,
+            SAXException, ParserConfigurationException {
+        boolean[] out = new boolean[1];
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes atts) {
+                if ("workbookPr".equals(localName)) {
+                    String v = atts.getValue("date1904");
+                    out[0] = "1".equals(v) || "true".equalsIgnoreCase(v);
+                }
+            }
+        });
+        try (InputStream wb = reader.getWorkbookData()) {
+            parser.parse(new InputSource(wb));
+        }
+        return out[0];
+    }
+
+    /* ======================== SAX ======================== */
+
+    /** Corta el parseo cuando no quedan filas pedidas (sin stack trace: es flujo normal). */
+    private static final class StopParsing extends SAXException {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private static final class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final boolean date1904;
+        private final RowHandler handler;
+        private final long[] rows;
+        private int run;            // tramo actual de `rows`
+        private boolean skipRow;    // fila fuera de los tramos: no se arman celdas
+        private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+        private final RawCell[] pool;
+        private final RawCell[] cells;
+
+        private int rowNum = -1;
+        private int nextCol;
+
+        // Estado de la celda actual
+        private int col = -1;
+        private String type;
+        private int styleIdx;
+        private boolean hasFormula;
+        private boolean inValue;    // dentro de <v> o de <is><t>
+        private boolean inInline;   // dentro de <is>
+        private boolean inPhonetic; // dentro de <rPh> (no es parte del texto)
+        private final StringBuilder value = new StringBuilder(32);
+        private boolean hasValue;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles, boolean date1904,
+                     int maxCols, long[] rows, RowHandler handler) {
+            this.strings = strings;
+            this.rows = rows;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.handler = handler;
+            this.pool = new RawCell[maxCols];
+            this.cells = new RawCell[maxCols];
+            for (int i = 0; i < maxCols; i++) pool[i] = new RawCell();
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            if (skipRow && !"row".equals(localName)) return;
+            switch (localName) {
+                case "row" -> {
+                    String r = atts.getValue("r");
+                    rowNum = (r != null) ? Integer.parseInt(r) - 1 : rowNum + 1;
+                    skipRow = !wanted(rowNum);
+                    nextCol = 0;
+                    Arrays.fill(cells, null);
+                }
+                case "c" -> {
+                    String ref = atts.getValue("r");
+                    col = (ref != null) ? columnOf(ref) : nextCol;
+                    nextCol = col + 1;
+                    type = atts.getValue("t");
+                    String s = atts.getValue("s");
+                    styleIdx = (s != null) ? Integer.parseInt(s) : 0;
+                    hasFormula = false;
+                    hasValue = false;
+                    value.setLength(0);
+                }
+                case "f" -> hasFormula = true;
+                case "v" -> inValue = true;
+                case "is" -> inInline = true;
+                case "rPh" -> inPhonetic = true;
+                case "t" -> {
+                    if (inInline && !inPhonetic) inValue = true;
+                }
+                default -> { }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue && !skipRow) {
+                value.append(ch, start, length);
+                hasValue = true;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (skipRow) return;
+            switch (localName) {
+                case "v", "t" -> inValue = false;
+                case "is" -> {
+                    inInline = false;
+                    hasValue = true; // <is> presente = string (aunque sea vacío)
+                }
+                case "rPh" -> inPhonetic = false;
+                case "c" -> {
+                    if (col >= 0 && col < cells.length) cells[col] = finishCell(pool[col]);
+                    col = -1;
+                }
+                case "row" -> handler.row(rowNum, cells);
+                default -> { }
+            }
+        }
+
+        private RawCell finishCell(RawCell c) {
+            c.text = null;
+            c.dateFormatted = false;
+            c.date1904 = date1904;
+
+            String t = (type == null) ? "n" : type;
+            if (hasFormula) {
+                c.kind = Kind.FORMULA;
+                c.text = value.toString();
+                return c;
+            }
+            switch (t) {
+                case "s" -> {
+                    c.kind = Kind.STRING;
+                    c.text = hasValue ? strings.getItemAt(Integer.parseInt(value.toString().trim())).getString() : "";
+                }
+                case "inlineStr", "str" -> {
+                    c.kind = Kind.STRING;
+                    c.text = value.toString();
+                }
+                case "b" -> {
+                    c.kind = hasValue ? Kind.BOOLEAN : Kind.BLANK;
+                    c.text = value.toString();
+                }
+                case "e" -> {
+                    c.kind = Kind.ERROR;
+                    c.text = value.toString();
+                }
+                default -> {
+                    if (!hasValue) {
+                        c.kind = Kind.BLANK;
+                    } else {
+                        c.kind = Kind.NUMERIC;
+                        c.text = value.toString();
+                        c.dateFormatted = isDateStyle(styleIdx) && DateUtil.isValidExcelDate(c.number());
+                    }
+                }
+            }
+            return c;
+        }
+
+        /** ¿La fila está en algún tramo pedido? Las filas llegan en orden creciente. */
+        private boolean wanted(int row) throws SAXException {
+            if (rows == null) return true;
+            while (run < rows.length && row >= rows[run + 1]) run += 2;
+            if (run >= rows.length) throw new StopParsing();
+            return row >= rows[run];
+        }
+
+        /** "AB12" → 27 (base 0), sin crear objetos por celda. */
+        private static int columnOf(String ref) {
+            int c = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char ch = ref.charAt(i);
+                if (ch < 'A' || ch > 'Z') break;
+                c = c * 26 + (ch - 'A' + 1);
+            }
+            return c - 1;
+        }
+
+        private boolean isDateStyle(int idx) {
+            return dateStyles.computeIfAbsent(idx, i -> {
+                if (styles == null || i >= styles.getNumCellStyles()) return false;
+                XSSFCellStyle st = styles.getStyleAt(i);
+                return st != null && DateUtil.isADateFormat(st.getDataFormat(), st.getDataFormatString());
+            });
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.example;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Verificación de la tabla por minuto de PremiumCalculator (sin JUnit/JMH):
+ *
+ *  1) Equivalencia: intervalos al azar (con bordes 07:00, 13:00, 23:59:59, 24:00 ± segundos,
+ *     intervalos que empiezan el día anterior o terminan el siguiente, feriados y domingos)
+ *     contra Reference, copia de las bandas originales con Duration. Compara los minutos de
+ *     classify y las horas de compute (con la salida DEBUG de compute silenciada).
+ *  2) Asignación: bytes alocados por llamada a classify (ThreadMXBean del hilo); tiene que ser 0.
+ *
+ * Sale con código 1 si hay diferencias o classify aloca. Uso:
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes org.example.PremiumTableCheck [casos]
+ */
+public class PremiumTableCheck {
+
+    private static final int[] EDGES = {0, 25_199, 25_200, 25_201, 46_799, 46_800, 46_801,
+            86_340, 86_341, 86_398, 86_399, 86_400};
+
+    public static void main(String[] args) {
+        int cases = (args.length > 0) ? Integer.parseInt(args[0]) : 2_000_000;
+        long bad = checkEquivalence(cases);
+        double bytesPerOp = measure();
+
+        System.out.println("[check] casos=" + cases + " diferencias=" + bad
+                + " classify=" + String.format("%.2f", bytesPerOp) + " B/op");
+        if (bad > 0 || bytesPerOp >= 0.01) System.exit(1);
+    }
+
+    /* ======================== Equivalencia ======================== */
+
+    private static long checkEquivalence(int cases) {
+        Random r = new Random(3);
+        LocalDate base = LocalDate.of(2024, 3, 4);
+        long bad = 0;
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // compute imprime DEBUG por llamada
+        try {
+            for (int k = 0; k < cases; k++) {
+                LocalDate d = base.plusDays(r.nextInt(7));
+                int x = r.nextBoolean() ? EDGES[r.nextInt(EDGES.length)] + r.nextInt(121) - 60 : r.nextInt(86_400);
+                int y = r.nextBoolean() ? EDGES[r.nextInt(EDGES.length)] + r.nextInt(121) - 60 : r.nextInt(86_401);
+                int from = Math.max(0, Math.min(x, y)), to = Math.min(86_400, Math.max(x, y));
+                LocalDateTime s = d.atStartOfDay().plusSeconds(from - (r.nextInt(10) == 0 ? 90_000 : 0));
+                LocalDateTime e = d.atStartOfDay().plusSeconds(to + (r.nextInt(10) == 0 ? 5_000 : 0));
+                boolean holiday = r.nextInt(5) == 0, sunday = r.nextInt(5) == 0;
+
+                long[] expected = Reference.minutes(d, s, e, holiday, sunday);
+                long packed = PremiumCalculator.classify(d.getDayOfWeek(), holiday || sunday,
+                        secondOfDate(d, s), secondOfDate(d, e));
+                PremiumCalculator.Result result = PremiumCalculator.compute(d, s, e, holiday, sunday);
+
+                boolean ok = PremiumCalculator.minutes50(packed) == expected[0]
+                        && PremiumCalculator.minutes100(packed) == expected[1]
+                        && result.hours50() == Reference.roundedHoursUp(expected[0])
+                        && result.hours100() == Reference.roundedHoursUp(expected[1]);
+                if (!ok && bad++ < 5) {
+                    out.println("[check] DIFF " + d + " " + s + " → " + e + " feriado=" + holiday
+                            + " domingo=" + sunday + " esperado=" + expected[0] + "/" + expected[1]
+                            + " classify=" + PremiumCalculator.minutes50(packed) + "/"
+                            + PremiumCalculator.minutes100(packed) + " compute=" + result);
+                }
+            }
+        } finally {
+            System.setOut(out);
+        }
+        return bad;
+    }
+
+    /** Mismo recorte que compute: el intervalo ya está dentro de [00:00, 24:00] de date. */
+    private static int secondOfDate(LocalDate date, LocalDateTime t) {
+        if (t.isBefore(date.atStartOfDay())) return 0;
+        if (!t.toLocalDate().equals(date)) return 86_400;
+        return t.toLocalTime().toSecondOfDay();
+    }
+
+    /* ======================== Asignación / tiempo ======================== */
+
+    /** @return bytes alocados por llamada a classify en la última ronda */
+    private static double measure() {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+
+        Random r = new Random(5);
+        int n = 4096;
+        int[] froms = new int[n], tos = new int[n];
+        DayOfWeek[] days = new DayOfWeek[n];
+        LocalDate[] dates = new LocalDate[n];
+        for (int i = 0; i < n; i++) {
+            int a = r.nextInt(86_401), b = r.nextInt(86_401);
+            froms[i] = Math.min(a, b);
+            tos[i] = Math.max(a, b);
+            dates[i] = LocalDate.of(2024, 3, 4).plusDays(i % 7);
+            days[i] = dates[i].getDayOfWeek();
+        }
+
+        int ops = 20_000_000;
+        long sink = 0;
+        double classifyBytes = 0;
+        for (int round = 0; round < 3; round++) { // las primeras rondas son calentamiento del JIT
+            long b0 = mx.getThreadAllocatedBytes(tid), t0 = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                int j = i & (n - 1);
+                sink += PremiumCalculator.classify(days[j], false, froms[j], tos[j]);
+            }
+            long b1 = mx.getThreadAllocatedBytes(tid), t1 = System.nanoTime();
+            int refOps = ops / 10;
+            for (int i = 0; i < refOps; i++) {
+                int j = i & (n - 1);
+                LocalDateTime day = dates[j].atStartOfDay();
+                sink += Reference.minutes(dates[j], day.plusSeconds(froms[j]), day.plusSeconds(tos[j]), false, false)[0];
+            }
+            long b2 = mx.getThreadAllocatedBytes(tid), t2 = System.nanoTime();
+
+            classifyBytes = (b1 - b0) / (double) ops;
+            System.out.printf("[check] ronda %d: classify %.1f ns/op %.2f B/op | referencia %.1f ns/op %.1f B/op%n",
+                    round, (t1 - t0) / (double) ops, classifyBytes,
+                    (t2 - t1) / (double) refOps, (b2 - b1) / (double) refOps);
+        }
+        if (sink == 42) System.out.println(); // que el JIT no descarte los bucles
+        return classifyBytes;
+    }
+
+    /* ======================== Referencia ======================== */
+
+    /** Cálculo original de PremiumCalculator: bandas del día intersectadas con Duration. */
+    private static final class Reference {
+
+        private record Band(LocalTime start, LocalTime end, boolean rate50) {}
+
+        /** {minutos 50%, minutos 100%} de [extraStart, extraEnd) recortado al día date. */
+        static long[] minutes(LocalDate date, LocalDateTime extraStart, LocalDateTime extraEnd,
+                              boolean isHoliday, boolean isSunday) {
+            long[] total = new long[2];
+            if (!extraEnd.isAfter(extraStart)) return total;
+
+            LocalDateTime dayStart = date.atStartOfDay();
+            LocalDateTime dayEnd   = date.plusDays(1).atStartOfDay();
+            if (extraStart.isBefore(dayStart)) extraStart = dayStart;
+            if (extraEnd.isAfter(dayEnd))      extraEnd  = dayEnd;
+            if (!extraEnd.isAfter(extraStart)) return total;
+
+            for (Band b : bands(date.getDayOfWeek(), isHoliday, isSunday)) {
+                LocalDateTime bandStart = date.atTime(b.start);
+                LocalDateTime bandEnd = b.end.equals(LocalTime.MIDNIGHT) ? dayEnd : date.atTime(b.end);
+
+                LocalDateTime start = extraStart.isAfter(bandStart) ? extraStart : bandStart;
+                LocalDateTime end   = extraEnd.isBefore(bandEnd) ? extraEnd : bandEnd;
+                if (end.isAfter(start)) {
+                    total[b.rate50 ? 0 : 1] += Duration.between(start, end).toMinutes();
+                }
+            }
+            return total;
+        }
+
+        static double roundedHoursUp(long minutes) {
+            if (minutes < 20) return 0.0;
+            long paidMinutes = ((minutes - 20) / 30 + 1) * 30;
+            return Math.round(paidMinutes / 60.0 * 100.0) / 100.0;
+        }
+
+        private static List<Band> bands(DayOfWeek dow, boolean isHoliday, boolean isSunday) {
+            List<Band> bands = new ArrayList<>();
+            if (isHoliday || isSunday) {
+                bands.add(new Band(LocalTime.MIDNIGHT, LocalTime.MIDNIGHT, false));
+            } else if (dow == DayOfWeek.SATURDAY) {
+                bands.add(new Band(LocalTime.of(7, 0), LocalTime.of(13, 0), true));
+                bands.add(new Band(LocalTime.of(13, 0), LocalTime.MIDNIGHT, false));
+            } else {
+                bands.add(new Band(LocalTime.MIDNIGHT, LocalTime.of(7, 0), false));
+                bands.add(new Band(LocalTime.of(7, 0), LocalTime.of(23, 59, 59), true));
+            }
+            return bands;
+        }
+    }
+}
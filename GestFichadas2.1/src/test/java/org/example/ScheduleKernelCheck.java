@@ -0,0 +1,220 @@
+package org.example;
+
+import java.lang.management.ManagementFactory;
+import java.time.*;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Verificación del núcleo en segundos de ScheduleService (sin JUnit/JMH):
+ *
+ *  1) Equivalencia: casos al azar (más bordes de cuarto de hora, salidas antes de la entrada
+ *     y al día siguiente) contra Reference, copia de las reglas originales con
+ *     LocalDateTime/Duration. Compara tardanza, extra, salida anticipada, attendance
+ *     empaquetado y assignShift con y sin hint.
+ *  2) Asignación: bytes alocados por llamada (ThreadMXBean del hilo) de attendance(int...);
+ *     tiene que ser 0. Se informan también ns/op del núcleo, del adaptador LocalDateTime
+ *     y de Reference.
+ *
+ * Sale con código 1 si hay diferencias o el núcleo aloca. Uso:
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes org.example.ScheduleKernelCheck [casos]
+ */
+public class ScheduleKernelCheck {
+
+    private static final ScheduleService.Shift[] SHIFTS = ScheduleService.Shift.values();
+
+    public static void main(String[] args) {
+        int cases = (args.length > 0) ? Integer.parseInt(args[0]) : 3_000_000;
+        long bad = checkEquivalence(cases);
+        double bytesPerOp = measure();
+
+        System.out.println("[check] casos=" + cases + " diferencias=" + bad
+                + " núcleo=" + String.format("%.2f", bytesPerOp) + " B/op");
+        if (bad > 0 || bytesPerOp >= 0.01) System.exit(1);
+    }
+
+    /* ======================== Equivalencia ======================== */
+
+    private static long checkEquivalence(int cases) {
+        Random r = new Random(7);
+        LocalDate base = LocalDate.of(2024, 3, 4);
+        long bad = 0;
+
+        for (int k = 0; k < cases; k++) {
+            LocalDate d = base.plusDays(r.nextInt(14));
+            int inS = (r.nextInt(3) == 0)
+                    ? (r.nextInt(24 * 4) * 900 + r.nextInt(3) * 30 - 30 + 86_400) % 86_400 // bordes de 15'
+                    : r.nextInt(86_400);
+            LocalDateTime in = d.atStartOfDay().plusSeconds(inS);
+            LocalDateTime out = in.plusSeconds(r.nextInt(5) == 0 ? -r.nextInt(20_000) : r.nextInt(3 * 86_400 / 2));
+            ScheduleService.Shift s = SHIFTS[r.nextInt(2)];
+            DayOfWeek dow = (r.nextInt(4) == 0) ? DayOfWeek.of(1 + r.nextInt(7)) : d.getDayOfWeek();
+            ScheduleService.Shift hint = (r.nextInt(3) == 0) ? null : SHIFTS[r.nextInt(2)];
+
+            long[] expected = {
+                    Reference.tardinessRounded(in, s, dow),
+                    Reference.overtimeRounded(in, out, s, dow),
+                    Reference.earlyLeaveRounded(in, out, s, dow)};
+            long[] adapter = {
+                    ScheduleService.tardinessRounded(in, s, dow),
+                    ScheduleService.overtimeRounded(in, out, s, dow),
+                    ScheduleService.earlyLeaveRounded(in, out, s, dow)};
+            long att = ScheduleService.attendance(in, out, s, dow);
+            long[] packed = {ScheduleService.tardiness(att), ScheduleService.overtime(att), ScheduleService.earlyLeave(att)};
+
+            boolean ok = Arrays.equals(expected, adapter) && Arrays.equals(expected, packed)
+                    && Reference.assignShift(in, out, hint) == ScheduleService.assignShift(in, out, hint)
+                    && Reference.assignShift(in, out, null) == ScheduleService.assignShift(in, out);
+            if (!ok && bad++ < 5) {
+                System.out.println("[check] DIFF in=" + in + " out=" + out + " " + s + " " + dow
+                        + " esperado=" + Arrays.toString(expected) + " adaptador=" + Arrays.toString(adapter)
+                        + " attendance=" + Arrays.toString(packed));
+            }
+        }
+        return bad;
+    }
+
+    /* ======================== Asignación / tiempo ======================== */
+
+    /** @return bytes alocados por llamada al núcleo en la última ronda */
+    private static double measure() {
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().threadId();
+
+        Random r = new Random(11);
+        LocalDateTime day = LocalDate.of(2024, 3, 6).atStartOfDay();
+        int n = 4096;
+        int[] ins = new int[n], outs = new int[n];
+        LocalDateTime[] inL = new LocalDateTime[n], outL = new LocalDateTime[n];
+        for (int i = 0; i < n; i++) {
+            ins[i] = r.nextInt(86_400);
+            outs[i] = ins[i] + r.nextInt(50_000);
+            inL[i] = day.plusSeconds(ins[i]);
+            outL[i] = day.plusSeconds(outs[i]);
+        }
+
+        int ops = 20_000_000;
+        long sink = 0;
+        double kernelBytes = 0;
+        for (int round = 0; round < 3; round++) { // las primeras rondas son calentamiento del JIT
+            long b0 = mx.getThreadAllocatedBytes(tid), t0 = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                int j = i & (n - 1);
+                sink += ScheduleService.attendance(ins[j], outs[j], SHIFTS[j & 1], DayOfWeek.WEDNESDAY);
+            }
+            long b1 = mx.getThreadAllocatedBytes(tid), t1 = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                int j = i & (n - 1);
+                sink += ScheduleService.attendance(inL[j], outL[j], SHIFTS[j & 1], DayOfWeek.WEDNESDAY);
+            }
+            long b2 = mx.getThreadAllocatedBytes(tid), t2 = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                int j = i & (n - 1);
+                ScheduleService.Shift s = SHIFTS[j & 1];
+                sink += Reference.tardinessRounded(inL[j], s, DayOfWeek.WEDNESDAY)
+                        + Reference.overtimeRounded(inL[j], outL[j], s, DayOfWeek.WEDNESDAY)
+                        + Reference.earlyLeaveRounded(inL[j], outL[j], s, DayOfWeek.WEDNESDAY);
+            }
+            long b3 = mx.getThreadAllocatedBytes(tid), t3 = System.nanoTime();
+
+            kernelBytes = (b1 - b0) / (double) ops;
+            System.out.printf("[check] ronda %d: núcleo %.1f ns/op %.2f B/op | adaptador %.1f ns/op %.2f B/op"
+                            + " | referencia %.1f ns/op %.1f B/op%n", round,
+                    (t1 - t0) / (double) ops, kernelBytes,
+                    (t2 - t1) / (double) ops, (b2 - b1) / (double) ops,
+                    (t3 - t2) / (double) ops, (b3 - b2) / (double) ops);
+        }
+        if (sink == 42) System.out.println(); // que el JIT no descarte los bucles
+        return kernelBytes;
+    }
+
+    /* ======================== Referencia ======================== */
+
+    /** Reglas originales de ScheduleService, con LocalDateTime/Duration (antes del núcleo en segundos). */
+    private static final class Reference {
+
+        private static final LocalTime IN_WINDOW_A_FROM  = LocalTime.of(7, 0);
+        private static final LocalTime IN_WINDOW_A_TO    = LocalTime.of(9, 14);
+        private static final LocalTime IN_WINDOW_B_FROM  = LocalTime.of(9, 15);
+        private static final LocalTime IN_WINDOW_B_TO    = LocalTime.of(14, 59);
+        private static final LocalTime OUT_WINDOW_A_FROM = LocalTime.of(15, 0);
+        private static final LocalTime OUT_WINDOW_A_TO   = LocalTime.of(17, 0);
+
+        static ScheduleService.Shift assignShift(LocalDateTime in, LocalDateTime out, ScheduleService.Shift hint) {
+            DayOfWeek dow = in.getDayOfWeek();
+            if (dow == DayOfWeek.SATURDAY) return ScheduleService.Shift.B;
+
+            LocalTime t = in.toLocalTime();
+            if (!t.isBefore(IN_WINDOW_A_FROM) && t.isBefore(IN_WINDOW_A_TO)
+                    && !t.isBefore(OUT_WINDOW_A_FROM) && t.isBefore(OUT_WINDOW_A_TO)) {
+                return ScheduleService.Shift.A;
+            }
+            if (!t.isBefore(IN_WINDOW_B_FROM) && t.isBefore(IN_WINDOW_B_TO)) {
+                return ScheduleService.Shift.B;
+            }
+
+            long costA = cost(in, out, ScheduleService.Shift.A, dow);
+            long costB = cost(in, out, ScheduleService.Shift.B, dow);
+            if (costA == costB && hint != null) return hint;
+            return (costA <= costB) ? ScheduleService.Shift.A : ScheduleService.Shift.B;
+        }
+
+        static long tardinessRounded(LocalDateTime in, ScheduleService.Shift s, DayOfWeek dow) {
+            LocalTime startExpected = (dow == DayOfWeek.SATURDAY)
+                    ? ScheduleService.B_SAT_START
+                    : ScheduleService.expectedStart(s, dow);
+            LocalDateTime expectedStart = LocalDateTime.of(in.toLocalDate(), startExpected);
+            return roundAttendance(Math.max(0, Duration.between(expectedStart, in).toMinutes()));
+        }
+
+        static long overtimeRounded(LocalDateTime in, LocalDateTime out, ScheduleService.Shift s, DayOfWeek dow) {
+            LocalDateTime expectedStart = LocalDateTime.of(in.toLocalDate(), ScheduleService.expectedStart(s, dow));
+            long earlyAtStart = Math.max(0, Duration.between(in, expectedStart).toMinutes());
+
+            LocalDateTime expectedEnd = LocalDateTime.of(out.toLocalDate(), ScheduleService.expectedEnd(s, dow));
+            long lateAtEnd = Math.max(0, Duration.between(expectedEnd, out).toMinutes());
+
+            long validEarly = (earlyAtStart >= 20) ? earlyAtStart : 0;
+            long validLate  = (lateAtEnd >= 20) ? lateAtEnd : 0;
+            return roundAttendance(validEarly + validLate);
+        }
+
+        static long earlyLeaveRounded(LocalDateTime in, LocalDateTime out, ScheduleService.Shift s, DayOfWeek dow) {
+            if (in == null || out == null || s == null) return 0;
+            LocalTime endExpected = (dow == DayOfWeek.SATURDAY)
+                    ? ScheduleService.B_SAT_END
+                    : ScheduleService.expectedEnd(s, dow);
+            LocalDateTime endDT = LocalDateTime.of(in.toLocalDate(), endExpected);
+            if (!out.isBefore(endDT)) return 0;
+
+            long worked   = Duration.between(in, out).toMinutes();
+            long required = Duration.between(in, endDT).toMinutes();
+            long missing = required - worked;
+            return (missing <= 0) ? 0 : roundAttendance(missing);
+        }
+
+        private static long roundAttendance(long minutes) {
+            if (minutes < 20) return 0;
+            long hours = minutes / 60;
+            long remainder = minutes % 60;
+            if (remainder < 20) return hours * 60;
+            if (remainder < 45) return hours * 60 + 30;
+            return (hours + 1) * 60;
+        }
+
+        private static long cost(LocalDateTime in, LocalDateTime out, ScheduleService.Shift s, DayOfWeek dow) {
+            LocalDateTime startExp = LocalDateTime.of(in.toLocalDate(), ScheduleService.expectedStart(s, dow));
+            long delta = Duration.between(startExp, in).toMinutes();
+
+            long penaltyLate  = Math.max(0, delta);
+            long penaltyEarly = Math.max(0, -delta) / 3;
+            long penaltyEnd = 0;
+            if (dow == DayOfWeek.SATURDAY && s == ScheduleService.Shift.B) {
+                LocalDateTime endExp = LocalDateTime.of(out.toLocalDate(), ScheduleService.expectedEnd(s, dow));
+                penaltyEnd = Math.abs(Duration.between(endExp, out).toMinutes()) / 2;
+            }
+            return penaltyLate + penaltyEarly + penaltyEnd;
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Lector Control iD "de mentira" para pruebas de carga y latencia sin el equipo real.
+ *
+ * Implementa lo que usa ControlIdClient:
+ * - POST /login.fcgi        {"login","password"} → {"session": "..."}
+ * - POST /load_objects.fcgi {"object":"users"|"access_logs", "where":[...], "fields":[...],
+ *                            "order":[...], "limit":N, "offset":N} → {"<object>":[...]}
+ *   (where en formato ARRAY: {"field","operator","value"} con =, !=, <, <=, >, >=)
+ *
+ * Los datos son sintéticos: `users` empleados con entrada/salida por día hábil en
+ * [from, to] (uno de cada diez en turno noche, con la salida de madrugada del día siguiente),
+ * guardados como lo haría el reloj (hora local - TIME_OFFSET_MIN).
+ * Se puede inyectar latencia fija + por registro y una tasa de errores HTTP 500.
+ *
+ * Los logs quedan ordenados por id y por hora, así que las condiciones sobre "id" y "time"
+ * se resuelven con búsqueda binaria y cada request cuesta lo que su página, no lo que el
+ * total de logs: el costo propio del simulador no ensucia las latencias que se miden.
+ *
+ * Es una herramienta de prueba (src/test, no va en el jar). Uso:
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes:... org.example.service.ControlIdSimulator
+ *        port=8090 users=1500 days=90 latencyMs=50 latencyPerRecordUs=5 errorRate=0.01
+ */
+public class ControlIdSimulator {
+
+    /** Configuración del simulador (valores por defecto razonables para una planta chica). */
+    public record Config(int port,
+                         String login,
+                         String password,
+                         int users,
+                         LocalDate from,
+                         LocalDate to,
+                         int timeOffsetMin,
+                         long latencyMs,
+                         long latencyPerRecordUs,
+                         double errorRate) {
+
+        public static Config defaults() {
+            LocalDate today = LocalDate.now();
+            return new Config(8090, "admin", "admin", 200, today.minusDays(90), today,
+                    180, 0, 0, 0.0);
+        }
+    }
+
+    private final Config cfg;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Set<String> sessions = ConcurrentHashMap.newKeySet();
+
+    // Access logs en arrays paralelos, ordenados por id (= orden cronológico)
+    private final long[] logTime;
+    private final long[] logUser;
+    private final int logCount;
+
+    private HttpServer server;
+
+    public ControlIdSimulator(Config cfg) {
+        this.cfg = cfg;
+
+        Random rnd = new Random(42);
+        ZoneId zone = ZoneId.systemDefault();
+        long offsetSec = cfg.timeOffsetMin() * 60L;
+
+        List<long[]> tmp = new ArrayList<>();
+        for (LocalDate d = cfg.from(); !d.isAfter(cfg.to()); d = d.plusDays(1)) {
+            if (d.getDayOfWeek() == DayOfWeek.SUNDAY) continue;
+            boolean saturday = d.getDayOfWeek() == DayOfWeek.SATURDAY;
+            for (int u = 1; u <= cfg.users(); u++) {
+                if (saturday && u % 2 == 0) continue;      // la mitad no trabaja sábado
+                if (rnd.nextInt(100) < 3) continue;        // ~3% ausencias
+                boolean shiftB = (u % 3 == 0);
+                boolean night  = !saturday && (u % 10 == 0); // sale de madrugada del día siguiente
+                int inMin  = night ? 22 * 60 : (saturday || !shiftB ? 8 * 60 : 10 * 60);
+                inMin += rnd.nextInt(41) - 20;
+                int outMin = night ? 24 * 60 + 2 * 60 : saturday ? 12 * 60 : (shiftB ? 18 * 60 : 16 * 60 + 30);
+                outMin += rnd.nextInt(61) - 15;
+
+                tmp.add(new long[]{toDeviceEpoch(d, inMin, rnd.nextInt(60), zone, offsetSec), u});
+                if (rnd.nextInt(100) >= 2) {               // ~2% se olvidan de marcar la salida
+                    tmp.add(new long[]{toDeviceEpoch(d, outMin, rnd.nextInt(60), zone, offsetSec), u});
+                }
+            }
+        }
+        tmp.sort(Comparator.comparingLong(a -> a[0]));
+
+        logCount = tmp.size();
+        logTime  = new long[logCount];
+        logUser  = new long[logCount];
+        for (int i = 0; i < logCount; i++) {
+            logTime[i] = tmp.get(i)[0];
+            logUser[i] = tmp.get(i)[1];
+        }
+    }
+
+    private static long toDeviceEpoch(LocalDate d, int minuteOfDay, int second, ZoneId zone, long offsetSec) {
+        LocalDateTime local = d.atStartOfDay().plusMinutes(minuteOfDay).plusSeconds(second);
+        return local.atZone(zone).toEpochSecond() - offsetSec;
+    }
+
+    public int logCount() {
+        return logCount;
+    }
+
+    /** Puerto en el que escucha (útil con port=0: lo elige el sistema). */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /* ======================== Servidor ======================== */
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(cfg.port()), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/login.fcgi", ex -> handle(ex, this::login));
+        server.createContext("/load_objects.fcgi", ex -> handle(ex, this::loadObjects));
+        server.start();
+        System.out.println("[simulator] escuchando en http://localhost:" + server.getAddress().getPort()
+                + " usuarios=" + cfg.users() + " access_logs=" + logCount);
+    }
+
+    public void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange ex, JsonNode body) throws IOException;
+    }
+
+    private void handle(HttpExchange ex, Handler h) throws IOException {
+        try (ex) {
+            if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) {
+                sendError(ex, 405, "method not allowed");
+                return;
+            }
+            if (cfg.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < cfg.errorRate()) {
+                sendError(ex, 500, "simulated failure");
+                return;
+            }
+            JsonNode body;
+            try (InputStream is = ex.getRequestBody()) {
+                body = mapper.readTree(is);
+            }
+            if (body == null) body = mapper.createObjectNode();
+            h.handle(ex, body);
+        } catch (RuntimeException e) {
+            sendError(ex, 400, e.getMessage());
+        }
+    }
+
+    private void login(HttpExchange ex, JsonNode body) throws IOException {
+        sleep(cfg.latencyMs(), 0);
+        if (!cfg.login().equals(body.path("login").asText())
+                || !cfg.password().equals(body.path("password").asText())) {
+            sendError(ex, 401, "invalid credentials");
+            return;
+        }
+        String session = UUID.randomUUID().toString().replace("-", "");
+        sessions.add(session);
+        sendJson(ex, g -> g.writeStringField("session", session));
+    }
+
+    private void loadObjects(HttpExchange ex, JsonNode body) throws IOException {
+        if (!sessions.contains(sessionOf(ex))) {
+            sendError(ex, 401, "not logged in");
+            return;
+        }
+
+        String object = body.path("object").asText();
+        List<Condition> where = parseWhere(body.path("where"));
+        Set<String> fields = parseFields(body.path("fields"));
+        int limit  = body.path("limit").asInt(Integer.MAX_VALUE);
+        int offset = body.path("offset").asInt(0);
+
+        switch (object) {
+            case "users" -> {
+                // id = índice + 1
+                Range r = narrow(where, cfg.users(), Map.of("id", i -> i + 1L));
+                int[] page = page(r, i -> matchesUser(r.residual(), i), offset, limit);
+                sleep(cfg.latencyMs(), page.length);
+                sendJson(ex, g -> {
+                    g.writeArrayFieldStart("users");
+                    for (int i : page) {
+                        int u = i + 1;
+                        g.writeStartObject();
+                        if (fields == null || fields.contains("id"))   g.writeNumberField("id", u);
+                        if (fields == null || fields.contains("name")) g.writeStringField("name", "Empleado " + u);
+                        if (fields == null || fields.contains("registration")) g.writeStringField("registration", String.valueOf(1000 + u));
+                        g.writeEndObject();
+                    }
+                    g.writeEndArray();
+                });
+            }
+            case "access_logs" -> {
+                // ids = índice + 1, orden natural por id (equivale a "order":["id"]) y por hora
+                Range r = narrow(where, logCount, Map.of("id", i -> i + 1L, "time", i -> logTime[i]));
+                int[] page = page(r, i -> matchesLog(r.residual(), i), offset, limit);
+                sleep(cfg.latencyMs(), page.length);
+                sendJson(ex, g -> {
+                    g.writeArrayFieldStart("access_logs");
+                    for (int i : page) {
+                        g.writeStartObject();
+                        if (fields == null || fields.contains("id"))      g.writeNumberField("id", i + 1L);
+                        if (fields == null || fields.contains("time"))    g.writeNumberField("time", logTime[i]);
+                        if (fields == null || fields.contains("event"))   g.writeNumberField("event", 7);
+                        if (fields == null || fields.contains("user_id")) g.writeNumberField("user_id", logUser[i]);
+                        g.writeEndObject();
+                    }
+                    g.writeEndArray();
+                });
+            }
+            default -> sendError(ex, 400, "unknown object: " + object);
+        }
+    }
+
+    /* ======================== where / fields ======================== */
+
+    private record Condition(String field, String operator, long value) {
+        boolean test(long v) {
+            return switch (operator) {
+                case "="  -> v == value;
+                case "!=" -> v != value;
+                case "<"  -> v < value;
+                case "<=" -> v <= value;
+                case ">"  -> v > value;
+                case ">=" -> v >= value;
+                default   -> throw new IllegalArgumentException("unsupported operator: " + operator);
+            };
+        }
+    }
+
+    private static List<Condition> parseWhere(JsonNode where) {
+        List<Condition> out = new ArrayList<>();
+        if (!where.isArray()) return out;
+        for (JsonNode c : where) {
+            out.add(new Condition(c.path("field").asText(), c.path("operator").asText("="),
+                    c.path("value").asLong()));
+        }
+        return out;
+    }
+
+    private static Set<String> parseFields(JsonNode fields) {
+        if (!fields.isArray()) return null;
+        Set<String> out = new HashSet<>();
+        fields.forEach(f -> out.add(f.asText()));
+        return out;
+    }
+
+    /** Filas candidatas [lo, hi) + condiciones que hay que evaluar fila por fila. */
+    private record Range(int lo, int hi, List<Condition> residual) {}
+
+    /**
+     * Acota el rango con búsqueda binaria usando las condiciones (=, <, <=, >, >=) sobre
+     * columnas ordenadas (sorted: campo → valor de la fila i, no decreciente en i).
+     * El resto (!=, columnas no ordenadas) queda en residual.
+     */
+    private static Range narrow(List<Condition> where, int n, Map<String, IntToLongFunction> sorted) {
+        int lo = 0, hi = n;
+        List<Condition> residual = new ArrayList<>();
+        for (Condition c : where) {
+            IntToLongFunction col = sorted.get(c.field());
+            if (col == null || c.operator().equals("!=")) {
+                residual.add(c);
+                continue;
+            }
+            switch (c.operator()) {
+                case ">"  -> lo = Math.max(lo, firstAbove(col, n, c.value()));
+                case ">=" -> lo = Math.max(lo, firstAtLeast(col, n, c.value()));
+                case "<"  -> hi = Math.min(hi, firstAtLeast(col, n, c.value()));
+                case "<=" -> hi = Math.min(hi, firstAbove(col, n, c.value()));
+                case "="  -> {
+                    lo = Math.max(lo, firstAtLeast(col, n, c.value()));
+                    hi = Math.min(hi, firstAbove(col, n, c.value()));
+                }
+                default   -> throw new IllegalArgumentException("unsupported operator: " + c.operator());
+            }
+        }
+        return new Range(lo, Math.max(lo, hi), residual);
+    }
+
+    /** Primer índice con col(i) >= v (n si no hay). */
+    private static int firstAtLeast(IntToLongFunction col, int n, long v) {
+        int lo = 0, hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (col.applyAsLong(mid) < v) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Primer índice con col(i) > v (n si no hay). */
+    private static int firstAbove(IntToLongFunction col, int n, long v) {
+        return (v == Long.MAX_VALUE) ? n : firstAtLeast(col, n, v + 1);
+    }
+
+    /** Condiciones sobre campos que el objeto no tiene no filtran (como el equipo, que las ignora). */
+    private boolean matchesLog(List<Condition> residual, int i) {
+        for (Condition c : residual) {
+            long v;
+            switch (c.field()) {
+                case "id"      -> v = i + 1L;
+                case "time"    -> v = logTime[i];
+                case "user_id" -> v = logUser[i];
+                default        -> { continue; }
+            }
+            if (!c.test(v)) return false;
+        }
+        return true;
+    }
+
+    private static boolean matchesUser(List<Condition> residual, int i) {
+        for (Condition c : residual) {
+            if (c.field().equals("id") && !c.test(i + 1L)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Índices de la página [offset, offset + limit) dentro del rango. Sin condiciones residuales
+     * sale directo del rango; con residuales se recorre solo hasta completar la página.
+     */
+    private static int[] page(Range r, IntPredicate matches, int offset, int limit) {
+        int skip = Math.max(0, offset);
+        int max  = Math.max(0, limit);
+        if (r.residual().isEmpty()) {
+            int from = (int) Math.min(r.hi(), (long) r.lo() + skip);
+            int to   = (int) Math.min(r.hi(), (long) from + max);
+            int[] out = new int[to - from];
+            for (int k = 0; k < out.length; k++) out[k] = from + k;
+            return out;
+        }
+        int[] out = new int[Math.min(max, r.hi() - r.lo())];
+        int count = 0;
+        for (int i = r.lo(); i < r.hi() && count < out.length; i++) {
+            if (!matches.test(i)) continue;
+            if (skip > 0) { skip--; continue; }
+            out[count++] = i;
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    /* ======================== HTTP helpers ======================== */
+
+    @FunctionalInterface
+    private interface JsonBody {
+        void write(JsonGenerator g) throws IOException;
+    }
+
+    private void sendJson(HttpExchange ex, JsonBody body) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, 0); // chunked, como el equipo en respuestas grandes
+        try (OutputStream os = ex.getResponseBody();
+             JsonGenerator g = mapper.getFactory().createGenerator(os)) {
+            g.writeStartObject();
+            body.write(g);
+            g.writeEndObject();
+        }
+    }
+
+    private static void sendError(HttpExchange ex, int code, String msg) throws IOException {
+        byte[] b = ("{\"error\":\"" + String.valueOf(msg).replace("\"", "'") + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(code, b.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(b);
+        }
+    }
+
+    /** Sesión por cookie "session=..." o por query string "?session=..." (ambas las acepta el equipo). */
+    private static String sessionOf(HttpExchange ex) {
+        String cookie = ex.getRequestHeaders().getFirst("Cookie");
+        if (cookie != null) {
+            for (String part : cookie.split(";")) {
+                String p = part.trim();
+                if (p.startsWith("session=")) return p.substring("session=".length());
+            }
+        }
+        String q = ex.getRequestURI().getQuery();
+        if (q != null) {
+            for (String part : q.split("&")) {
+                if (part.startsWith("session=")) return part.substring("session=".length());
+            }
+        }
+        return "";
+    }
+
+    /** Latencia simulada: fija por request + un costo por registro devuelto. */
+    private void sleep(long baseMs, int records) {
+        long micros = baseMs * 1000 + (long) records * cfg.latencyPerRecordUs();
+        if (micros <= 0) return;
+        try {
+            Thread.sleep(micros / 1000, (int) (micros % 1000) * 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* ======================== main ======================== */
+
+    public static void main(String[] args) throws Exception {
+        Config d = Config.defaults();
+        Map<String, String> a = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) a.put(arg.substring(0, eq).replaceFirst("^--", ""), arg.substring(eq + 1));
+        }
+
+        int days = Integer.parseInt(a.getOrDefault("days", "90"));
+        LocalDate to = a.containsKey("to") ? LocalDate.parse(a.get("to")) : d.to();
+        Config cfg = new Config(
+                Integer.parseInt(a.getOrDefault("port", String.valueOf(d.port()))),
+                a.getOrDefault("login", d.login()),
+                a.getOrDefault("password", d.password()),
+                Integer.parseInt(a.getOrDefault("users", String.valueOf(d.users()))),
+                to.minusDays(days - 1L),
+                to,
+                Integer.parseInt(a.getOrDefault("timeOffsetMin", String.valueOf(d.timeOffsetMin()))),
+                Long.parseLong(a.getOrDefault("latencyMs", "0")),
+                Long.parseLong(a.getOrDefault("latencyPerRecordUs", "0")),
+                Double.parseDouble(a.getOrDefault("errorRate", "0")));
+
+        new ControlIdSimulator(cfg).start();
+    }
+}
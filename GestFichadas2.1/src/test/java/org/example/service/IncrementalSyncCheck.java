@@ -0,0 +1,85 @@
+package org.example.service;
+
+import org.example.Fichada;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verificación de IncrementalSyncClient contra el lector directo (sin JUnit), sobre un
+ * ControlIdSimulator local con turno noche (salidas entre las 00:00 y las 03:00):
+ *
+ *   primera carga → extensión hacia adelante → hacia atrás → a ambos lados → cache
+ *   recargada del disco con un cliente nuevo.
+ *
+ * En cada paso las fichadas del rango (ids) tienen que ser exactamente las de
+ * ControlIdClient.fetchAccessLogs para el mismo rango; en particular las de madrugada en
+ * los bordes de lo que ya estaba cubierto. Sale con código 1 si hay diferencias. Uso:
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes:... org.example.service.IncrementalSyncCheck
+ */
+public class IncrementalSyncCheck {
+
+    public static void main(String[] args) throws Exception {
+        LocalDate today = LocalDate.now();
+        ControlIdSimulator sim = new ControlIdSimulator(new ControlIdSimulator.Config(
+                0, "admin", "admin", 60, today.minusDays(60), today, 180, 0, 0, 0.0));
+        sim.start();
+        Path cache = Files.createTempFile("incremental-sync-check", ".bin");
+        int bad = 0;
+        try {
+            String url = "http://localhost:" + sim.port();
+            ControlIdClient direct = new ControlIdClient(url);
+            if (!direct.login("admin", "admin")) throw new IllegalStateException("login falló en el simulador");
+
+            Files.delete(cache); // sin cache: primera carga
+            IncrementalSyncClient sync = new IncrementalSyncClient(new ControlIdClient(url), cache);
+            sync.login("admin", "admin");
+
+            LocalDate d = today.minusDays(30);
+            bad += compare("primera carga", sync, direct, d, d.plusDays(6));
+            bad += compare("adelante", sync, direct, d, d.plusDays(13));
+            bad += compare("atrás", sync, direct, d.minusDays(7), d.plusDays(13));
+            bad += compare("ambos lados", sync, direct, d.minusDays(12), d.plusDays(20));
+
+            IncrementalSyncClient reloaded = new IncrementalSyncClient(new ControlIdClient(url), cache);
+            reloaded.login("admin", "admin");
+            bad += compare("cache recargada", reloaded, direct, d.minusDays(12), d.plusDays(20));
+        } finally {
+            sim.stop();
+            Files.deleteIfExists(cache);
+        }
+
+        System.out.println("[check] pasos con diferencias=" + bad);
+        if (bad > 0) System.exit(1);
+    }
+
+    /** @return 1 si el rango cacheado difiere del pedido directo */
+    private static int compare(String step, IControlIdClient sync, IControlIdClient direct,
+                               LocalDate from, LocalDate to) throws Exception {
+        List<Long> expected = ids(direct.fetchAccessLogs(from, to));
+        List<Long> actual = ids(sync.fetchAccessLogs(from, to));
+        long night = direct.fetchAccessLogs(from, to).stream()
+                .filter(f -> f.dateTime().getHour() < 3).count();
+
+        List<Long> missing = new ArrayList<>(expected);
+        missing.removeAll(actual);
+        List<Long> extra = new ArrayList<>(actual);
+        extra.removeAll(expected);
+        boolean ok = missing.isEmpty() && extra.isEmpty() && expected.size() == actual.size();
+        System.out.println("[check] " + step + " " + from + ".." + to + ": directo=" + expected.size()
+                + " (madrugada " + night + ") sync=" + actual.size()
+                + (ok ? "" : " faltan=" + missing.size() + " sobran=" + extra.size()));
+        return ok ? 0 : 1;
+    }
+
+    private static List<Long> ids(List<Fichada> logs) {
+        List<Long> out = new ArrayList<>(logs.size());
+        for (Fichada f : logs) out.add(f.id());
+        out.sort(null);
+        return out;
+    }
+}
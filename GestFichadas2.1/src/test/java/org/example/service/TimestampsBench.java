@@ -0,0 +1,102 @@
+package org.example.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Comparación de Timestamps contra LocalDateTime.parse con el formatter (sin JUnit/JMH):
+ *
+ *  1) Equivalencia: bordes (31/04, 29/02 bisiesto y no, 24:00:00, año 0000, separadores y
+ *     dígitos inválidos, largos distintos) y 1M textos al azar con días 01..31. Timestamps.parse
+ *     tiene que dar el mismo valor o la misma excepción que el formatter, y fastEpochSeconds
+ *     (sobre los 19 bytes, a un offset dentro de un ByteBuffer) el mismo epoch UTC, o INVALID
+ *     cuando el formatter falla o ajusta la fecha.
+ *  2) ns/op del formatter y del camino rápido sobre los textos válidos.
+ *
+ * Sale con código 1 si hay diferencias. Uso:
+ *   mvn test-compile
+ *   java -cp target/classes:target/test-classes org.example.service.TimestampsBench [textos]
+ */
+public class TimestampsBench {
+
+    private static final String[] EDGES = {
+            "31/04/2026 10:00:00", "29/02/2024 00:00:00", "29/02/2025 00:00:00", "29/02/2000 12:00:00",
+            "29/02/1900 12:00:00", "24:00:00", "19/01/2026 24:00:00", "00/01/2026 10:00:00",
+            "19/13/2026 10:00:00", "19/00/2026 10:00:00", "19/01/0000 10:00:00", "19/01/0001 00:00:00",
+            "31/12/9999 23:59:59", "19/01/2026 10:60:00", "19/01/2026 10:00:60", "1/1/2026 10:00:00",
+            "19-01-2026 10:00:00", "19/01/2026T10:00:00", "19/01/2026 10:00:0x", "+9/01/2026 10:00:00",
+            " 19/01/2026 10:00:00", "19/01/2026 10:00:00 ", "19/01/2026 23:59:59", "19/01/2026 10:00",
+            "", "//////////////////", "19/01/2026 1:00:00٠"};
+
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Random r = new Random(3);
+        String[] data = new String[count];
+        for (int i = 0; i < count; i++) {
+            data[i] = String.format("%02d/%02d/%04d %02d:%02d:%02d", 1 + r.nextInt(31), 1 + r.nextInt(12),
+                    1990 + r.nextInt(60), r.nextInt(24), r.nextInt(60), r.nextInt(60));
+        }
+
+        long bad = 0;
+        for (String s : EDGES) bad += compare(s, bad);
+        for (String s : data) bad += compare(s, bad);
+        System.out.println("[bench] textos=" + (EDGES.length + count) + " diferencias=" + bad);
+
+        String[] valid = Arrays.stream(data)
+                .filter(s -> Integer.parseInt(s.substring(0, 2)) <= 28)
+                .toArray(String[]::new);
+        long sink = 0;
+        for (int round = 0; round < 5; round++) { // las primeras rondas son calentamiento del JIT
+            long t0 = System.nanoTime();
+            for (String s : valid) sink += LocalDateTime.parse(s, Timestamps.DD_MM_YYYY_HH_MM_SS).getSecond();
+            long t1 = System.nanoTime();
+            for (String s : valid) sink += Timestamps.parse(s).getSecond();
+            long t2 = System.nanoTime();
+            System.out.printf("[bench] ronda %d: formatter %.0f ns/op | Timestamps.parse %.0f ns/op (x%.1f)%n",
+                    round, (t1 - t0) / (double) valid.length, (t2 - t1) / (double) valid.length,
+                    (t1 - t0) / (double) (t2 - t1));
+        }
+        if (sink == 42) System.out.println(); // que el JIT no descarte los bucles
+
+        if (bad > 0) System.exit(1);
+    }
+
+    /** @return 1 si Timestamps difiere del formatter para s */
+    private static int compare(String s, long badSoFar) {
+        String expected, actual;
+        long expectedEpoch = Timestamps.INVALID;
+        try {
+            LocalDateTime t = LocalDateTime.parse(s, Timestamps.DD_MM_YYYY_HH_MM_SS);
+            expected = t.toString();
+            // el formatter ajusta 31/04 o 24:00:00 (resolver SMART); ahí el camino rápido devuelve
+            // INVALID y quien llama cae en el parseo general
+            if (Timestamps.DD_MM_YYYY_HH_MM_SS.format(t).equals(s)) expectedEpoch = t.toEpochSecond(ZoneOffset.UTC);
+        } catch (RuntimeException e) {
+            expected = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+        try {
+            actual = Timestamps.parse(s).toString();
+        } catch (RuntimeException e) {
+            actual = e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+
+        boolean ok = expected.equals(actual);
+        long fast = Timestamps.INVALID;
+        if (s.length() == 19) {
+            // fastEpochSeconds solo mira el layout fijo; el largo exacto lo controla quien llama
+            byte[] bytes = ("x," + s + ",y").getBytes(StandardCharsets.ISO_8859_1);
+            fast = Timestamps.fastEpochSeconds(ByteBuffer.wrap(bytes), 2, 21);
+            ok &= (fast == expectedEpoch);
+        }
+        if (!ok && badSoFar < 5) {
+            System.out.println("[bench] DIFF \"" + s + "\" formatter=" + expected + " (" + expectedEpoch
+                    + ") Timestamps=" + actual + " (" + fast + ")");
+        }
+        return ok ? 0 : 1;
+    }
+}